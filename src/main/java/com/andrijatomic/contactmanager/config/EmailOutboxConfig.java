@@ -0,0 +1,30 @@
+package com.andrijatomic.contactmanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class EmailOutboxConfig {
+
+  /**
+   * Sends the slices of an outbox batch, one SMTP connection per thread. A poll never submits
+   * more slices than there are threads.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor emailOutboxExecutor(
+      @Value("${contactmanager.mail.outbox.threads:2}") int threads) {
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(threads);
+    executor.setThreadNamePrefix("email-outbox-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    return executor;
+  }
+}
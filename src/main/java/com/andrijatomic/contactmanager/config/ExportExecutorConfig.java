@@ -0,0 +1,29 @@
+package com.andrijatomic.contactmanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExportExecutorConfig {
+
+  /**
+   * Writes the export files requested as background jobs. Bounded like the import executor, a
+   * submission beyond the queue is rejected.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor contactExportExecutor(
+      @Value("${contactmanager.export.async.threads:2}") int threads,
+      @Value("${contactmanager.export.async.queue-capacity:20}") int queueCapacity) {
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("contact-export-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    return executor;
+  }
+}
@@ -0,0 +1,59 @@
+package com.andrijatomic.contactmanager.config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImportExecutorConfig {
+
+  /**
+   * Runs the asynchronous CSV imports. Both the pool and the queue are bounded, a submission
+   * beyond them is rejected instead of piling up spooled files.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor contactImportExecutor(
+      @Value("${contactmanager.import.async.threads:2}") int threads,
+      @Value("${contactmanager.import.async.queue-capacity:20}") int queueCapacity) {
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("contact-import-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    return executor;
+  }
+
+  /**
+   * Imports the CSV files of an uploaded zip archive side by side. It has no queue, when all
+   * threads are busy the import's own thread takes the next file.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor contactImportEntryExecutor(
+      @Value("${contactmanager.import.zip.threads:4}") int threads) {
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(0);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("contact-import-entry-");
+    return executor;
+  }
+
+  /**
+   * Validates and maps parsed CSV rows for every running import, kept apart from the common pool
+   * so imports can't starve parallel streams elsewhere in the application.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ForkJoinPool contactImportMappingPool(
+      @Value("${contactmanager.import.mapping.parallelism:"
+          + "#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int parallelism) {
+    return new ForkJoinPool(parallelism);
+  }
+}
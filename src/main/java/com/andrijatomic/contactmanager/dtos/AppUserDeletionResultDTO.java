@@ -0,0 +1,12 @@
+package com.andrijatomic.contactmanager.dtos;
+
+public record AppUserDeletionResultDTO(
+    long contacts,
+    long accountVerifications,
+    long phoneVerifications,
+    long roles,
+    long contactImports,
+    long users
+) {
+
+}
@@ -20,4 +20,12 @@ public record ContactResponseDTO(
     String contactTypeTsid
 ) {
 
+  /**
+   * Used by the JPQL constructor expressions in ContactRepo.
+   */
+  public ContactResponseDTO(Long contactTsid, String firstName, String lastName, String address,
+      String phoneNumber, String contactType, Long contactTypeTsid) {
+    this(String.valueOf(contactTsid), firstName, lastName, address, phoneNumber, contactType,
+        contactTypeTsid == null ? null : contactTypeTsid.toString());
+  }
 }
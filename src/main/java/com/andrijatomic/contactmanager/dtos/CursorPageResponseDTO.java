@@ -0,0 +1,10 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import java.util.List;
+
+public record CursorPageResponseDTO<T>(
+    List<T> content,
+    String nextCursor
+) {
+
+}
@@ -0,0 +1,16 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import java.time.Instant;
+
+public record ExportJobStatusDTO(
+    String jobId,
+    String status,
+    Long contactsVersion,
+    boolean gzip,
+    Instant submittedAt,
+    Instant startedAt,
+    Instant finishedAt,
+    String error
+) {
+
+}
@@ -0,0 +1,21 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import java.time.Instant;
+
+public record ImportJobStatusDTO(
+    String jobId,
+    String status,
+    long rowsRead,
+    long inserted,
+    long updated,
+    long unchanged,
+    long rejected,
+    double rowsPerSecond,
+    Instant submittedAt,
+    Instant startedAt,
+    Instant finishedAt,
+    String error,
+    boolean errorReport
+) {
+
+}
@@ -0,0 +1,50 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @param skippedFiles files of a zip archive that were not imported because they are not .csv
+ */
+public record ImportResultDTO(
+    int imported,
+    int updated,
+    int unchanged,
+    int errored,
+    List<String> skippedFiles
+) {
+
+  public ImportResultDTO(int imported, int updated, int unchanged, int errored) {
+    this(imported, updated, unchanged, errored, List.of());
+  }
+
+  public ImportResultDTO(int imported, int errored) {
+    this(imported, 0, 0, errored);
+  }
+
+  public ImportResultDTO plus(ImportResultDTO other) {
+    return new ImportResultDTO(imported + other.imported, updated + other.updated,
+        unchanged + other.unchanged, errored + other.errored,
+        Stream.concat(skippedFiles.stream(), other.skippedFiles.stream()).toList());
+  }
+
+  public ImportResultDTO withSkippedFiles(List<String> skippedFiles) {
+    return new ImportResultDTO(imported, updated, unchanged, errored, skippedFiles);
+  }
+
+  public String message() {
+    String message;
+    if (updated == 0 && unchanged == 0) {
+      message = imported + " contact(s) added. " + errored + " errored.";
+    } else {
+      message = imported + " contact(s) added. " + updated + " updated. " + unchanged
+          + " unchanged. " + errored + " errored.";
+    }
+
+    if (!skippedFiles.isEmpty()) {
+      message += " Skipped " + skippedFiles.size() + " file(s) that are not .csv: "
+          + String.join(", ", skippedFiles) + ".";
+    }
+    return message;
+  }
+}
@@ -0,0 +1,11 @@
+package com.andrijatomic.contactmanager.dtos;
+
+public record LoginResponseDTO(
+    String accessToken,
+    String refreshToken,
+    String tokenType,
+    long expiresIn,
+    AppUserResponseDTO user
+) {
+
+}
@@ -0,0 +1,18 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import java.util.List;
+import org.springframework.data.domain.Page;
+
+public record PageResponseDTO<T>(
+    List<T> content,
+    int page,
+    int size,
+    long totalElements,
+    int totalPages
+) {
+
+  public static <T> PageResponseDTO<T> of(Page<T> page) {
+    return new PageResponseDTO<>(page.getContent(), page.getNumber(), page.getSize(),
+        page.getTotalElements(), page.getTotalPages());
+  }
+}
@@ -0,0 +1,10 @@
+package com.andrijatomic.contactmanager.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDTO(
+    @NotBlank(message = "Refresh token can not be blank")
+    String refreshToken
+) {
+
+}
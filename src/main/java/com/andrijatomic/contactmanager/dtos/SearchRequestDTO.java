@@ -1,5 +1,6 @@
 package com.andrijatomic.contactmanager.dtos;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -11,8 +12,10 @@ public record SearchRequestDTO(
     @Size(min = 3, message = "At least 3 characters are needed for search")
     String searchKeyword,
     @NotNull
+    @Min(0)
     int page,
     @NotNull
+    @Min(1)
     int size,
     @NotBlank
     String sortBy
@@ -0,0 +1,11 @@
+package com.andrijatomic.contactmanager.exceptions;
+
+/**
+ * Thrown when an upload exceeds the import limits. The message is meant for the client.
+ */
+public class ImportRejectedException extends RuntimeException {
+
+  public ImportRejectedException(String message) {
+    super(message);
+  }
+}
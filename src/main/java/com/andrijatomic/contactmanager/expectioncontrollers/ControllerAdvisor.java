@@ -3,6 +3,7 @@ package com.andrijatomic.contactmanager.expectioncontrollers;
 import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.exceptions.ContactNotFoundException;
 import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
+import com.andrijatomic.contactmanager.exceptions.ImportRejectedException;
 import com.andrijatomic.contactmanager.exceptions.RoleNotFoundException;
 import com.opencsv.exceptions.CsvDataTypeMismatchException;
 import com.opencsv.exceptions.CsvRequiredFieldEmptyException;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -96,6 +98,9 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
       body.put("message", "Email already in use");
     } else if (ex.getConstraintName().equals("unique_phone_number")) {
       body.put("message", "Phone already in use");
+    } else if (ex.getConstraintName()
+        .equals("contacts_app_user_phone_number_normalized_key")) {
+      body.put("message", "You already have a contact with this phone number");
     } else {
       body.put("message", "Constraint violation: " + ex.getConstraintName());
     }
@@ -135,6 +140,28 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
+  @ExceptionHandler(TaskRejectedException.class)
+  public ResponseEntity<Object> handleTaskRejectedException() {
+
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("timestamp", LocalDate.now());
+    body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+    body.put("message", "Too many tasks queued, try again later");
+
+    return new ResponseEntity<>(body, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(ImportRejectedException.class)
+  public ResponseEntity<Object> handleImportRejectedException(ImportRejectedException ex) {
+
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("timestamp", LocalDate.now());
+    body.put("status", HttpStatus.BAD_REQUEST.value());
+    body.put("message", ex.getMessage());
+
+    return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(IOException.class)
   public ResponseEntity<Object> handleIOException () {
 
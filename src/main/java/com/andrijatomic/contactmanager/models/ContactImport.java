@@ -0,0 +1,53 @@
+package com.andrijatomic.contactmanager.models;
+
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a finished CSV import, keyed by the SHA-256 of the uploaded bytes so a repeated
+ * upload can be answered without importing it again.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "contact_imports")
+public class ContactImport {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @NotNull
+  @Column(name = "app_user_id")
+  private Long appUserId;
+
+  @NotNull
+  @Column(name = "content_hash")
+  private String contentHash;
+
+  @NotNull
+  @Enumerated(EnumType.STRING)
+  private ImportMode mode;
+
+  private int imported;
+  private int updated;
+  private int unchanged;
+  private int errored;
+
+  @NotNull
+  @Column(name = "created_at")
+  private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Entity
@@ -35,7 +37,9 @@ public class Role {
   private String roleName;
 
   @JsonIgnore
-  @ManyToMany(mappedBy = "roles", fetch = FetchType.EAGER)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  @ManyToMany(mappedBy = "roles", fetch = FetchType.LAZY)
   private List<AppUser> appUsers = new ArrayList<>();
 
 }
@@ -1,13 +1,50 @@
 package com.andrijatomic.contactmanager.repos;
 
 import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.repos.projections.AppUserCredentialsView;
+import com.andrijatomic.contactmanager.repos.projections.AppUserRoleView;
+import com.andrijatomic.contactmanager.repos.projections.AppUserView;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AppUserRepo extends JpaRepository<AppUser, Long> {
 
+  String SELECT_APP_USER_VIEW = "SELECT u.id AS id, u.tsid AS tsid, u.firstName AS firstName,"
+      + " u.lastName AS lastName, u.email AS email, u.phoneNumber AS phoneNumber,"
+      + " u.isPhoneVerified AS phoneVerified FROM AppUser u";
+
   Optional<AppUser> getAppUserByTsid(Long tsid);
   Optional<AppUser> findByEmail(String email);
-  void deleteAppUserByTsid(Long tsid);
+
+  @Query("SELECT u.id AS id, u.tsid AS tsid, u.email AS email, u.password AS password,"
+      + " u.isEnabled AS enabled, r.roleName AS roleName"
+      + " FROM AppUser u LEFT JOIN u.roles r WHERE u.email = :email")
+  List<AppUserCredentialsView> findCredentialsByEmail(@Param("email") String email);
+
+  /**
+   * The version is bumped by the database whenever the password changes or the user is enabled
+   * or disabled, it isn't mapped on the entity.
+   */
+  @Query(value = "SELECT token_version FROM users WHERE id = :id", nativeQuery = true)
+  int findTokenVersionById(@Param("id") Long id);
+
+  @Query(SELECT_APP_USER_VIEW)
+  List<AppUserView> findAllViews(Pageable pageable);
+
+  @Query(SELECT_APP_USER_VIEW + " WHERE u.tsid = :tsid")
+  Optional<AppUserView> findViewByTsid(@Param("tsid") Long tsid);
+
+  /**
+   * Loads the roles of a page of users in one statement, the role collections are never
+   * initialized for reads.
+   */
+  @Query("SELECT u.id AS userId, r.tsid AS tsid, r.roleName AS roleName"
+      + " FROM AppUser u JOIN u.roles r WHERE u.id IN :userIds ORDER BY r.id")
+  List<AppUserRoleView> findRolesByUserIds(@Param("userIds") Collection<Long> userIds);
 
 }
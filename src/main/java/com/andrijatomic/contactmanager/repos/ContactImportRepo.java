@@ -0,0 +1,13 @@
+package com.andrijatomic.contactmanager.repos;
+
+import com.andrijatomic.contactmanager.models.ContactImport;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ContactImportRepo extends JpaRepository<ContactImport, Long> {
+
+  Optional<ContactImport> findFirstByAppUserIdAndContentHashAndModeAndCreatedAtAfter(
+      Long appUserId, String contentHash, ImportMode mode, LocalDateTime createdAfter);
+}
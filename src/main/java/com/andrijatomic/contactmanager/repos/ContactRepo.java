@@ -1,25 +1,110 @@
 package com.andrijatomic.contactmanager.repos;
 
-import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
 import com.andrijatomic.contactmanager.models.Contact;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface ContactRepo extends JpaRepository<Contact, Long>{
 
+  /**
+   * Read paths select straight into {@link ContactResponseDTO}, joining the contact type in the
+   * same query. No entities are loaded, so there is no lazy load per contact and nothing to dirty
+   * check on flush.
+   */
+  String SELECT_CONTACT_RESPONSE = "SELECT new com.andrijatomic.contactmanager.dtos"
+      + ".ContactResponseDTO(c.tsid, c.firstName, c.lastName, c.address, c.phoneNumber, t.type,"
+      + " t.tsid) FROM Contact c LEFT JOIN c.contactType t";
+
   Optional<Contact> getContactByTsid(Long tsid);
-  List<Contact> getContactsByAppUser(AppUser appUser, Pageable pageable);
-  List<Contact> getContactsByAppUser(AppUser appUser, Sort sort);
-  List<Contact> getContactByAppUserAndFirstNameContainingIgnoreCase(AppUser appUser, String firstName);
-  List<Contact> getContactByAppUserAndLastNameContainingIgnoreCase(AppUser appUser, String lastName);
-  List<Contact> getContactByAppUserAndAddressContainingIgnoreCase(AppUser appUser, String address);
-  List<Contact> getContactByAppUserAndPhoneNumberContainingIgnoreCase(AppUser appUser, String phoneNumber);
+
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.tsid = :tsid AND c.appUser.id = :appUserId")
+  Optional<ContactResponseDTO> getContactResponseByTsid(@Param("tsid") Long tsid,
+      @Param("appUserId") Long appUserId);
+
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId")
+  List<ContactResponseDTO> getContactResponsesByAppUserId(@Param("appUserId") Long appUserId,
+      Pageable pageable);
+
+  /**
+   * Forward-only cursor over the user's contacts. Has to be consumed inside a transaction and
+   * closed afterwards.
+   */
+  @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " ORDER BY c.firstName, c.tsid")
+  Stream<ContactResponseDTO> streamContactResponsesByAppUserId(
+      @Param("appUserId") Long appUserId);
+
+  // The lower(...) LIKE form matches the trigram indexes from V1_0_15, the upper(...) that derived
+  // IgnoreCase queries generate would not. The pattern is expected to be lower case already.
+  @Query(value = SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND lower(c.firstName) LIKE :pattern ESCAPE '\\'",
+      countQuery = "SELECT count(c) FROM Contact c WHERE c.appUser.id = :appUserId"
+          + " AND lower(c.firstName) LIKE :pattern ESCAPE '\\'")
+  Page<ContactResponseDTO> searchByFirstName(@Param("appUserId") Long appUserId,
+      @Param("pattern") String pattern, Pageable pageable);
+
+  @Query(value = SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND lower(c.lastName) LIKE :pattern ESCAPE '\\'",
+      countQuery = "SELECT count(c) FROM Contact c WHERE c.appUser.id = :appUserId"
+          + " AND lower(c.lastName) LIKE :pattern ESCAPE '\\'")
+  Page<ContactResponseDTO> searchByLastName(@Param("appUserId") Long appUserId,
+      @Param("pattern") String pattern, Pageable pageable);
+
+  @Query(value = SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND lower(c.address) LIKE :pattern ESCAPE '\\'",
+      countQuery = "SELECT count(c) FROM Contact c WHERE c.appUser.id = :appUserId"
+          + " AND lower(c.address) LIKE :pattern ESCAPE '\\'")
+  Page<ContactResponseDTO> searchByAddress(@Param("appUserId") Long appUserId,
+      @Param("pattern") String pattern, Pageable pageable);
+
+  @Query(value = SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND lower(c.phoneNumber) LIKE :pattern ESCAPE '\\'",
+      countQuery = "SELECT count(c) FROM Contact c WHERE c.appUser.id = :appUserId"
+          + " AND lower(c.phoneNumber) LIKE :pattern ESCAPE '\\'")
+  Page<ContactResponseDTO> searchByPhoneNumber(@Param("appUserId") Long appUserId,
+      @Param("pattern") String pattern, Pageable pageable);
+
+  // Seek queries for keyset pagination, backed by the (app_user_id, column, tsid) indexes from
+  // V1_0_16. The leading >= gives the index a range start, the rest breaks ties on the tsid.
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND c.firstName >= :key AND (c.firstName > :key OR c.tsid > :tsid)"
+      + " ORDER BY c.firstName, c.tsid")
+  List<ContactResponseDTO> getContactsAfterFirstName(@Param("appUserId") Long appUserId,
+      @Param("key") String key, @Param("tsid") Long tsid, Pageable pageable);
+
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND c.lastName >= :key AND (c.lastName > :key OR c.tsid > :tsid)"
+      + " ORDER BY c.lastName, c.tsid")
+  List<ContactResponseDTO> getContactsAfterLastName(@Param("appUserId") Long appUserId,
+      @Param("key") String key, @Param("tsid") Long tsid, Pageable pageable);
+
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND c.address >= :key AND (c.address > :key OR c.tsid > :tsid)"
+      + " ORDER BY c.address, c.tsid")
+  List<ContactResponseDTO> getContactsAfterAddress(@Param("appUserId") Long appUserId,
+      @Param("key") String key, @Param("tsid") Long tsid, Pageable pageable);
+
+  @Query(SELECT_CONTACT_RESPONSE + " WHERE c.appUser.id = :appUserId"
+      + " AND c.phoneNumber >= :key AND (c.phoneNumber > :key OR c.tsid > :tsid)"
+      + " ORDER BY c.phoneNumber, c.tsid")
+  List<ContactResponseDTO> getContactsAfterPhoneNumber(@Param("appUserId") Long appUserId,
+      @Param("key") String key, @Param("tsid") Long tsid, Pageable pageable);
+
   @Modifying
   @Query("DELETE FROM Contact c WHERE c.tsid = :contactTsid")
   void deleteContactByTsid(@Param("contactTsid") Long contactTsid);
@@ -0,0 +1,16 @@
+package com.andrijatomic.contactmanager.repos.projections;
+
+public interface AppUserCredentialsView {
+
+  Long getId();
+
+  Long getTsid();
+
+  String getEmail();
+
+  String getPassword();
+
+  Boolean getEnabled();
+
+  String getRoleName();
+}
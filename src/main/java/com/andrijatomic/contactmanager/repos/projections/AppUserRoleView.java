@@ -0,0 +1,10 @@
+package com.andrijatomic.contactmanager.repos.projections;
+
+public interface AppUserRoleView {
+
+  Long getUserId();
+
+  Long getTsid();
+
+  String getRoleName();
+}
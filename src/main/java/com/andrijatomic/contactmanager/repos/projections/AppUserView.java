@@ -0,0 +1,18 @@
+package com.andrijatomic.contactmanager.repos.projections;
+
+public interface AppUserView {
+
+  Long getId();
+
+  Long getTsid();
+
+  String getFirstName();
+
+  String getLastName();
+
+  String getEmail();
+
+  String getPhoneNumber();
+
+  Boolean getPhoneVerified();
+}
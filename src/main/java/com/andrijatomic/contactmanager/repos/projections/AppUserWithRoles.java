@@ -0,0 +1,10 @@
+package com.andrijatomic.contactmanager.repos.projections;
+
+import java.util.List;
+
+/**
+ * A user read through {@link AppUserView} together with its roles, which are read separately.
+ */
+public record AppUserWithRoles(AppUserView appUser, List<AppUserRoleView> roles) {
+
+}
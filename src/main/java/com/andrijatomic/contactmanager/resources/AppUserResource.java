@@ -4,7 +4,7 @@ import com.andrijatomic.contactmanager.dtos.AddAppUserRequestDTO;
 import com.andrijatomic.contactmanager.dtos.AppUserResponseDTO;
 import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
 import com.andrijatomic.contactmanager.dtos.UpdateAppUserRequestDTO;
-import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
 import com.andrijatomic.contactmanager.services.AppUserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,9 +17,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.mail.MessagingException;
 import jakarta.validation.Valid;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -29,6 +29,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -210,11 +211,7 @@ public class AppUserResource {
       )
       @RequestBody @Valid AddAppUserRequestDTO addAppUserRequestDTO){
 
-    try {
-      return appUserService.addAppUser(addAppUserRequestDTO);
-    } catch (MessagingException e) {
-      return new ResponseEntity<>("Failed to add user", HttpStatus.INTERNAL_SERVER_ERROR);
-    }
+    return appUserService.addAppUser(addAppUserRequestDTO);
   }
 
   @Operation(summary = "Edit an existing user",
@@ -278,19 +275,29 @@ public class AppUserResource {
           )
       )
       @RequestBody @Valid UpdateAppUserRequestDTO updateAppUserRequestDTO, @AuthenticationPrincipal
-      AppUser loggedInUser) {
+      AppUserPrincipal loggedInUser) {
 
     return new ResponseEntity<>(appUserService
         .updateAppUser(updateAppUserRequestDTO, loggedInUser), HttpStatus.OK);
   }
 
   @Operation(summary = "Delete a user by its TSID",
-      description = "Deletes a user found by its TSID.",
+      description = "Deletes a user found by its TSID together with their contacts,"
+          + " verifications, roles and import history, and returns the number of rows removed.",
       security = {@SecurityRequirement(name = "user_auth")})
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Deleted the user", content = {
           @Content(mediaType = "application/json",
-              examples = {@ExampleObject(value = "User deleted")})
+              examples = {@ExampleObject(value = """
+                  {
+                      "contacts": 200000,
+                      "accountVerifications": 1,
+                      "phoneVerifications": 0,
+                      "roles": 1,
+                      "contactImports": 3,
+                      "users": 1
+                  }
+                  """)})
       }),
       @ApiResponse(responseCode = "400", ref = "badRequest"),
       @ApiResponse(responseCode = "404", ref = "appUserNotFound")
@@ -299,8 +306,7 @@ public class AppUserResource {
   public ResponseEntity<?> deleteAppUser(
       @Parameter(description = "User TSID:", example = "456394668800627516")
       @PathVariable Long tsid) {
-    appUserService.deleteAppUser(tsid);
-    return new ResponseEntity<>(HttpStatus.OK);
+    return new ResponseEntity<>(appUserService.deleteAppUser(tsid), HttpStatus.OK);
   }
 
   @Operation(summary = "Get all user roles",
@@ -327,11 +333,12 @@ public class AppUserResource {
                       )
                   })
           }),
+      @ApiResponse(responseCode = "304", description = "Roles unchanged since the given ETag"),
       @ApiResponse(responseCode = "400", ref = "badRequest")
   })
   @GetMapping("/get-roles")
-  public ResponseEntity<?> getAllRoles() {
-    return appUserService.getAllRoles();
+  public ResponseEntity<?> getAllRoles(@RequestHeader HttpHeaders headers) {
+    return appUserService.getAllRoles(headers);
   }
 
   @Operation(summary = "Count user",
@@ -1,8 +1,9 @@
 package com.andrijatomic.contactmanager.resources;
 
-import com.andrijatomic.contactmanager.dtos.AppUserResponseDTO;
-import com.andrijatomic.contactmanager.models.AppUser;
-import com.andrijatomic.contactmanager.utils.AppUserResponseDTOMapper;
+import com.andrijatomic.contactmanager.dtos.LoginResponseDTO;
+import com.andrijatomic.contactmanager.dtos.RefreshTokenRequestDTO;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.services.AuthenticationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +13,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,14 +29,16 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Authentication Resource")
 public class AuthenticationResource {
 
-  private final AppUserResponseDTOMapper responseMapper;
+  private final AuthenticationService authenticationService;
 
-  public AuthenticationResource(AppUserResponseDTOMapper responseMapper) {
-    this.responseMapper = responseMapper;
+  public AuthenticationResource(AuthenticationService authenticationService) {
+    this.authenticationService = authenticationService;
   }
 
   @Operation(summary = "Login",
-      description = "After successful login, returns logged in user's info",
+      description = "After successful login, returns an access token, a refresh token and the"
+          + " logged in user's info. The access token is sent as 'Authorization: Bearer <token>'"
+          + " on later requests instead of the email and password.",
       security = {@SecurityRequirement(name = "user_auth")})
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Successful login",
@@ -43,18 +49,24 @@ public class AuthenticationResource {
                           value =
                               """
                                   {
-                                      "tsid": "454165907150024959",
-                                      "firstName": "Regular",
-                                      "lastName": "User",
-                                      "email": "regularuser1@gmail.com",
-                                      "phoneNumber": "+3547897897",
-                                      "isPhoneVerified": false,
-                                      "roles": [
-                                          {
-                                              "roleTsid": "453899597133387633",
-                                              "roleName": "ROLE_USER"
-                                          }
-                                      ]
+                                      "accessToken": "eyJhbGciOiJIUzI1NiJ9...",
+                                      "refreshToken": "eyJhbGciOiJIUzI1NiJ9...",
+                                      "tokenType": "Bearer",
+                                      "expiresIn": 900,
+                                      "user": {
+                                          "tsid": "454165907150024959",
+                                          "firstName": "Regular",
+                                          "lastName": "User",
+                                          "email": "regularuser1@gmail.com",
+                                          "phoneNumber": "+3547897897",
+                                          "isPhoneVerified": false,
+                                          "roles": [
+                                              {
+                                                  "roleTsid": "453899597133387633",
+                                                  "roleName": "ROLE_USER"
+                                              }
+                                          ]
+                                      }
                                   }
                               """
                       )
@@ -63,10 +75,56 @@ public class AuthenticationResource {
       @ApiResponse(responseCode = "401", description = "Incorrect email and/or password")
   })
   @GetMapping
-  public ResponseEntity<AppUserResponseDTO> login (
-      @AuthenticationPrincipal AppUser userMakingLoginRequest
+  public ResponseEntity<LoginResponseDTO> login (
+      @AuthenticationPrincipal AppUserPrincipal userMakingLoginRequest
   ) {
-    return new ResponseEntity<>(responseMapper.apply(userMakingLoginRequest), HttpStatus.OK);
+    return new ResponseEntity<>(authenticationService.login(userMakingLoginRequest),
+        HttpStatus.OK);
+  }
+
+  @Operation(summary = "Refresh tokens",
+      description = "Exchanges a valid refresh token for a new access and refresh token pair.")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Issued new tokens",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                                  {
+                                      "accessToken": "eyJhbGciOiJIUzI1NiJ9...",
+                                      "refreshToken": "eyJhbGciOiJIUzI1NiJ9...",
+                                      "tokenType": "Bearer",
+                                      "expiresIn": 900,
+                                      "user": null
+                                  }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "400", ref = "badRequest"),
+      @ApiResponse(responseCode = "401", description = "Refresh token is invalid or expired")
+  })
+  @PostMapping("/refresh")
+  public ResponseEntity<?> refresh(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+          content = @Content(
+              mediaType = "application/json",
+              examples = {
+                  @ExampleObject(
+                      value =
+                          """
+                          {
+                              "refreshToken": "eyJhbGciOiJIUzI1NiJ9..."
+                          }
+                          """
+                  )
+              }
+          )
+      )
+      @RequestBody @Valid RefreshTokenRequestDTO requestDTO) {
+    return authenticationService.refresh(requestDTO.refreshToken());
   }
 
 }
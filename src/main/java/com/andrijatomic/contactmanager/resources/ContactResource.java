@@ -2,12 +2,13 @@ package com.andrijatomic.contactmanager.resources;
 
 import com.andrijatomic.contactmanager.dtos.AddContactRequestDTO;
 import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import com.andrijatomic.contactmanager.dtos.CursorPageResponseDTO;
+import com.andrijatomic.contactmanager.dtos.PageResponseDTO;
 import com.andrijatomic.contactmanager.dtos.SearchRequestDTO;
 import com.andrijatomic.contactmanager.dtos.UpdateContactRequestDTO;
-import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
 import com.andrijatomic.contactmanager.services.ContactService;
-import com.opencsv.exceptions.CsvDataTypeMismatchException;
-import com.opencsv.exceptions.CsvRequiredFieldEmptyException;
+import com.andrijatomic.contactmanager.utils.ImportMode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -23,6 +24,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import java.io.IOException;
 import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +36,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -78,7 +81,7 @@ public class ContactResource {
   @GetMapping("/get/{tsid}")
   public ResponseEntity<?> getContact(@Parameter(description = "Contact TSID:",
       example = "454216252721226245")
-  @PathVariable Long tsid, @AuthenticationPrincipal AppUser loggedInUser) {
+  @PathVariable Long tsid, @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
     return contactService.getContact(tsid, loggedInUser);
   }
@@ -131,14 +134,74 @@ public class ContactResource {
           @ExampleObject(value = "address", name = "address", description = "Sort by address"),
           @ExampleObject(value = "phoneNumber", name = "phoneNumber", description = "Sort by phone number")
       }) @PathVariable String sortByProperty,
-      @AuthenticationPrincipal AppUser loggedInUser) {
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
     return new ResponseEntity<>(
         contactService.getAllContacts(page, size, sortByProperty, loggedInUser), HttpStatus.OK);
   }
 
+  @Operation(summary = "Get contacts using a cursor",
+      description = "Displays the contacts that user owns, continuing after the contact encoded in"
+          + " the 'after' cursor. Leave the cursor out for the first page and pass the returned"
+          + " 'nextCursor' for the following ones. 'nextCursor' is null on the last page.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Found contacts",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value = """
+                              {
+                                  "content": [
+                                      {
+                                          "contactTsid": "454894387068030805",
+                                          "firstName": "Cathe",
+                                          "lastName": "Fessier",
+                                          "address": "288 Cambridge Lane",
+                                          "phoneNumber": "+3810457484",
+                                          "contactType": "Friend",
+                                          "contactTypeTsid": "463749531195899274"
+                                      },
+                                      {
+                                          "contactTsid": "454894483260196751",
+                                          "firstName": "Dael",
+                                          "lastName": "Makey",
+                                          "address": "58 School Pass",
+                                          "phoneNumber": "+3810487404",
+                                          "contactType": "Friend",
+                                          "contactTypeTsid": "463749531195899274"
+                                      }
+                                  ],
+                                  "nextCursor": "Zmlyc3ROYW1lOjQ1NDg5NDQ4MzI2MDE5Njc1MTpEYWVs"
+                              }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "400", ref = "badRequest")
+  })
+  @GetMapping("/get-all/size/{size}/sort-by/{sortByProperty}")
+  public ResponseEntity<CursorPageResponseDTO<ContactResponseDTO>> getAllContactsAfter(
+      @Parameter(description = "Page size", example = "2") @PathVariable int size,
+      @Parameter(description = "Property for the contacts to be sorted by", examples = {
+          @ExampleObject(value = "firstName", name = "firstName", description = "Sort by first name"),
+          @ExampleObject(value = "lastName", name = "lastName", description = "Sort by last name"),
+          @ExampleObject(value = "address", name = "address", description = "Sort by address"),
+          @ExampleObject(value = "phoneNumber", name = "phoneNumber", description = "Sort by phone number")
+      }) @PathVariable String sortByProperty,
+      @Parameter(description = "Cursor returned as 'nextCursor' by the previous page")
+      @RequestParam(required = false) String after,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
+
+    return new ResponseEntity<>(
+        contactService.getAllContactsAfter(after, size, sortByProperty, loggedInUser),
+        HttpStatus.OK);
+  }
+
   @Operation(summary = "Advanced search for contacts",
-      description = "Searches for contacts based on search parameter, search keyword and Pagable.",
+      description = "Searches for contacts based on search parameter, search keyword and Pagable."
+          + " Returns the requested page together with the total number of matches.",
       security = {@SecurityRequirement(name = "user_auth")})
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Found contacts",
@@ -147,28 +210,32 @@ public class ContactResource {
                   examples = {
                       @ExampleObject(
                           value = """
-                              [
-                                  {
-                                      "contactTSID": 454216252721226245,
-                                      "userTSID": 454165907150024959,
-                                      "firstName": "Andrija",
-                                      "lastName": "Tomic",
-                                      "address": "Neka adresa 45",
-                                      "phoneNumber": "+381031564568",
-                                      "contactType": "Friend",
-                                      "contactTypeTsid": 463749531195899274
-                                  },
-                                  {
-                                      "contactTSID": 454893485758236951,
-                                      "userTSID": 454575275739236273,
-                                      "firstName": "Andrija",
-                                      "lastName": "Tomic",
-                                      "address": "Neka adresa 54",
-                                      "phoneNumber": "+38112345678",
-                                      "contactType": "Friend",
-                                      "contactTypeTsid": 463749531195899274
-                                  }
-                              ]
+                              {
+                                  "content": [
+                                      {
+                                          "contactTsid": "454216252721226245",
+                                          "firstName": "Andrija",
+                                          "lastName": "Tomic",
+                                          "address": "Neka adresa 45",
+                                          "phoneNumber": "+381031564568",
+                                          "contactType": "Friend",
+                                          "contactTypeTsid": "463749531195899274"
+                                      },
+                                      {
+                                          "contactTsid": "454893485758236951",
+                                          "firstName": "Andrija",
+                                          "lastName": "Tomic",
+                                          "address": "Neka adresa 54",
+                                          "phoneNumber": "+38112345678",
+                                          "contactType": "Friend",
+                                          "contactTypeTsid": "463749531195899274"
+                                      }
+                                  ],
+                                  "page": 0,
+                                  "size": 10,
+                                  "totalElements": 2,
+                                  "totalPages": 1
+                              }
                               """
                       )
                   })
@@ -176,7 +243,7 @@ public class ContactResource {
       @ApiResponse(responseCode = "400", ref = "badRequest")
   })
   @PostMapping("/search")
-  public ResponseEntity<List<ContactResponseDTO>> searchContacts(
+  public ResponseEntity<PageResponseDTO<ContactResponseDTO>> searchContacts(
       @io.swagger.v3.oas.annotations.parameters.RequestBody(
           content = @Content(
               mediaType = "application/json",
@@ -197,7 +264,7 @@ public class ContactResource {
           )
       )
       @RequestBody @Valid
-      SearchRequestDTO searchRequest, @AuthenticationPrincipal AppUser loggedInUser) {
+      SearchRequestDTO searchRequest, @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
       return new ResponseEntity<>(contactService.searchContacts(searchRequest, loggedInUser),
           HttpStatus.OK);
   }
@@ -251,7 +318,7 @@ public class ContactResource {
           )
       )
       @RequestBody @Valid AddContactRequestDTO addContactRequestDTO, @AuthenticationPrincipal
-      AppUser loggedInUser) {
+      AppUserPrincipal loggedInUser) {
 
     return new ResponseEntity<>(contactService
         .addContact(addContactRequestDTO, loggedInUser), HttpStatus.CREATED);
@@ -309,7 +376,7 @@ public class ContactResource {
           )
       )
       @RequestBody @Valid UpdateContactRequestDTO contact,
-      @AuthenticationPrincipal AppUser loggedInUser) {
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
     return contactService.updateContact(contact, loggedInUser);
   }
@@ -331,13 +398,15 @@ public class ContactResource {
   public ResponseEntity<?> deleteContact(@Parameter(description = "Contact TSID:",
       example = "454893592994007175")
       @PathVariable Long tsid,
-      @AuthenticationPrincipal AppUser loggedInUser) {
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
     return contactService.deleteContact(tsid, loggedInUser);
   }
 
   @Operation(summary = "Export contacts to CSV file",
-      description = "Exports current user's contacts to a CSV file.",
+      description = "Exports current user's contacts to a CSV file. The file is gzip compressed"
+          + " if the client accepts it, and carries an ETag that changes with the contacts."
+          + " Interrupted downloads can be resumed with Range and If-Range.",
       security = {@SecurityRequirement(name = "user_auth")})
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Exported contacts to CSV",
@@ -357,32 +426,300 @@ public class ContactResource {
                       )
                   })
           }),
+      @ApiResponse(responseCode = "206", description = "Requested range of the exported file"),
+      @ApiResponse(responseCode = "304", description = "Contacts unchanged since the given ETag"),
       @ApiResponse(responseCode = "400", ref = "badRequest"),
+      @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
       @ApiResponse(responseCode = "500", ref = "internalServerError")
   })
   @GetMapping("/exportcsv")
-  public void exportContactsToCsv(HttpServletResponse response,
-      @AuthenticationPrincipal AppUser loggedInUser)
-      throws IOException, CsvRequiredFieldEmptyException, CsvDataTypeMismatchException {
+  public ResponseEntity<?> exportContactsToCsv(@RequestHeader HttpHeaders headers,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) throws IOException {
+
+    return contactService.exportContactsToCsv(loggedInUser, headers);
+  }
+
+  @Operation(summary = "Export contacts to CSV file in the background",
+      description = "Starts a job that writes current user's contacts to a CSV file and returns"
+          + " its id. The file is gzip compressed if the client accepts it. If the contacts have"
+          + " not changed since their last export, the job completes right away with that file.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Export job submitted",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              {
+                                  "jobId": "6f1c2b9e-0a4d-4c3b-8e2f-9d7a5b3c1e40",
+                                  "status": "QUEUED",
+                                  "contactsVersion": null,
+                                  "gzip": true,
+                                  "submittedAt": "2023-06-20T10:15:30.120Z",
+                                  "startedAt": null,
+                                  "finishedAt": null,
+                                  "error": null
+                              }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "503", description = "Too many exports are already queued")
+  })
+  @PostMapping("/exportcsv/jobs")
+  public ResponseEntity<?> exportContactsToCsvAsync(@RequestHeader HttpHeaders headers,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
-    contactService.exportContactsToCsv(loggedInUser, response);
+    return contactService.exportContactsToCsvAsync(loggedInUser, headers);
+  }
+
+  @Operation(summary = "Get the status of a CSV export job",
+      description = "Finished jobs are kept for a limited time.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Found export job",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              {
+                                  "jobId": "6f1c2b9e-0a4d-4c3b-8e2f-9d7a5b3c1e40",
+                                  "status": "COMPLETED",
+                                  "contactsVersion": 42,
+                                  "gzip": true,
+                                  "submittedAt": "2023-06-20T10:15:30.120Z",
+                                  "startedAt": "2023-06-20T10:15:30.180Z",
+                                  "finishedAt": "2023-06-20T10:15:31.920Z",
+                                  "error": null
+                              }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "404", description = "Export job not found")
+  })
+  @GetMapping("/exportcsv/jobs/{jobId}")
+  public ResponseEntity<?> getExportJob(
+      @Parameter(description = "Export job id") @PathVariable String jobId,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
+
+    return contactService.getExportJob(jobId, loggedInUser);
+  }
+
+  @Operation(summary = "Download the file of a CSV export job",
+      description = "Serves the file of a finished export job with an ETag, so the download can"
+          + " be resumed with Range and If-Range. The file is replaced once the contacts change.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Exported file"),
+      @ApiResponse(responseCode = "206", description = "Requested range of the exported file"),
+      @ApiResponse(responseCode = "304", description = "File unchanged since the given ETag"),
+      @ApiResponse(responseCode = "404", description = "Export job not found"),
+      @ApiResponse(responseCode = "406",
+          description = "File is gzip compressed and the client does not accept gzip"),
+      @ApiResponse(responseCode = "409", description = "Export job is still running"),
+      @ApiResponse(responseCode = "410", description = "Contacts changed since the export"),
+      @ApiResponse(responseCode = "416", description = "Requested range not satisfiable"),
+      @ApiResponse(responseCode = "500", description = "Export job failed")
+  })
+  @GetMapping("/exportcsv/jobs/{jobId}/file")
+  public ResponseEntity<?> downloadExportJob(
+      @Parameter(description = "Export job id") @PathVariable String jobId,
+      @RequestHeader HttpHeaders headers,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) throws IOException {
+
+    return contactService.downloadExportJob(jobId, loggedInUser, headers);
   }
 
   @Operation(summary = "Import contacts from a CSV file",
-      description = "Adds contacts to the logged in user from an uploaded CSV file.",
+      description = "Adds contacts to the logged in user from an uploaded CSV file. The file may"
+          + " be gzip compressed, or a zip archive of CSV files that are imported in parallel.",
       security = {@SecurityRequirement(name = "user_auth")})
   @ApiResponses(value = {
-      @ApiResponse(responseCode = "200", description = "Contacts added"),
+      @ApiResponse(responseCode = "200", description = "Contacts added, or the stored result of"
+          + " an identical upload within the dedupe window"),
+      @ApiResponse(responseCode = "202", description = "An identical upload is still being"
+          + " imported, returns its import job"),
       @ApiResponse(responseCode = "400", ref = "badRequest"),
       @ApiResponse(responseCode = "500", ref = "internalServerError")
   })
   @PostMapping(value = "/importcsv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public ResponseEntity<?> importContactsFromCsvFile(
       @RequestParam MultipartFile file,
-      @AuthenticationPrincipal AppUser loggedInUser) {
+      @Parameter(description = "BATCH inserts in committed chunks, COPY bulk loads the whole"
+          + " file in one transaction and is meant for very large files, UPSERT inserts in"
+          + " committed chunks and updates contacts that already have the row's phone number")
+      @RequestParam(defaultValue = "BATCH") ImportMode mode,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) throws IOException {
+
+    return contactService.importContactsFromCsvFile(file, mode, loggedInUser);
 
-    return contactService.importContactsFromCsvFile(file, loggedInUser);
+  }
+
+  @Operation(summary = "Import contacts from a CSV file and get the rejected rows back",
+      description = "Adds contacts to the logged in user from an uploaded CSV file and streams"
+          + " back a CSV report with the line number, column and constraint message of every"
+          + " rejected row while the import runs. The report ends with a row holding the status"
+          + " of the import, COMPLETED with the summary, REJECTED with the limit the upload broke"
+          + " or FAILED.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Contacts added, rejected rows reported",
+          content = {
+              @Content(mediaType = "text/csv",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              line,column,message
+                              3,firstName,First name can only contain letters of the alphabet without spaces
+                              7,contactType,Contact type with name Gym not found.
+                              ,COMPLETED,8 contact(s) added. 2 errored.
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "400", ref = "badRequest"),
+      @ApiResponse(responseCode = "500", ref = "internalServerError")
+  })
+  @PostMapping(value = "/importcsv/error-report", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<?> importContactsFromCsvFileWithErrorReport(
+      @RequestParam MultipartFile file,
+      @Parameter(description = "BATCH inserts in committed chunks, COPY bulk loads the whole"
+          + " file in one transaction and is meant for very large files, UPSERT inserts in"
+          + " committed chunks and updates contacts that already have the row's phone number")
+      @RequestParam(defaultValue = "BATCH") ImportMode mode,
+      HttpServletResponse response,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) throws IOException {
+
+    return contactService.importContactsFromCsvFileWithErrorReport(file, mode, loggedInUser,
+        response);
+  }
+
+  @Operation(summary = "Import contacts from a CSV file in the background",
+      description = "Stores the uploaded CSV file and imports it in the background. Returns the"
+          + " import job right away, its progress can be polled with its job id. The file may be"
+          + " gzip compressed, or a zip archive of CSV files that are imported in parallel.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Import job accepted",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              {
+                                  "jobId": "1b2d7a3e-5c1f-4f4e-9a57-3f0d8c1e2b61",
+                                  "status": "QUEUED",
+                                  "rowsRead": 0,
+                                  "inserted": 0,
+                                  "updated": 0,
+                                  "unchanged": 0,
+                                  "rejected": 0,
+                                  "rowsPerSecond": 0.0,
+                                  "submittedAt": "2023-06-20T10:15:30.120Z",
+                                  "startedAt": null,
+                                  "finishedAt": null,
+                                  "error": null,
+                                  "errorReport": true
+                              }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "400", ref = "badRequest"),
+      @ApiResponse(responseCode = "503", description = "Too many imports are already queued")
+  })
+  @PostMapping(value = "/importcsv/async", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<?> importContactsFromCsvFileAsync(
+      @RequestParam MultipartFile file,
+      @Parameter(description = "BATCH inserts in committed chunks, COPY bulk loads the whole"
+          + " file in one transaction and is meant for very large files, UPSERT inserts in"
+          + " committed chunks and updates contacts that already have the row's phone number")
+      @RequestParam(defaultValue = "BATCH") ImportMode mode,
+      @Parameter(description = "Write the rejected rows to a CSV report that can be downloaded"
+          + " once the job has finished")
+      @RequestParam(defaultValue = "false") boolean errorReport,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) throws IOException {
+
+    return contactService.importContactsFromCsvFileAsync(file, mode, errorReport, loggedInUser);
+  }
+
+  @Operation(summary = "Get the progress of a CSV import job",
+      description = "Returns the rows read, inserted and rejected so far and the import"
+          + " throughput. Finished jobs are kept for a limited time.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Found import job",
+          content = {
+              @Content(mediaType = "application/json",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              {
+                                  "jobId": "1b2d7a3e-5c1f-4f4e-9a57-3f0d8c1e2b61",
+                                  "status": "RUNNING",
+                                  "rowsRead": 120000,
+                                  "inserted": 119000,
+                                  "updated": 0,
+                                  "unchanged": 0,
+                                  "rejected": 12,
+                                  "rowsPerSecond": 48000.0,
+                                  "submittedAt": "2023-06-20T10:15:30.120Z",
+                                  "startedAt": "2023-06-20T10:15:30.180Z",
+                                  "finishedAt": null,
+                                  "error": null,
+                                  "errorReport": true
+                              }
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "404", description = "Import job not found")
+  })
+  @GetMapping("/importcsv/jobs/{jobId}")
+  public ResponseEntity<?> getImportJob(
+      @Parameter(description = "Import job id") @PathVariable String jobId,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
+
+    return contactService.getImportJob(jobId, loggedInUser);
+  }
+
+  @Operation(summary = "Download the error report of a CSV import job",
+      description = "Returns the line number, column and constraint message of every row the"
+          + " finished import job rejected. Only available if the job was submitted with an"
+          + " error report.",
+      security = {@SecurityRequirement(name = "user_auth")})
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Error report",
+          content = {
+              @Content(mediaType = "text/csv",
+                  examples = {
+                      @ExampleObject(
+                          value =
+                              """
+                              line,column,message
+                              3,firstName,First name can only contain letters of the alphabet without spaces
+                              7,contactType,Contact type with name Gym not found.
+                              """
+                      )
+                  })
+          }),
+      @ApiResponse(responseCode = "404", description = "Import job or error report not found"),
+      @ApiResponse(responseCode = "409", description = "Import job is still running")
+  })
+  @GetMapping("/importcsv/jobs/{jobId}/errors")
+  public ResponseEntity<?> getImportJobErrorReport(
+      @Parameter(description = "Import job id") @PathVariable String jobId,
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
 
+    return contactService.getImportJobErrorReport(jobId, loggedInUser);
   }
 
   @Operation(summary = "Count contacts",
@@ -1,6 +1,6 @@
 package com.andrijatomic.contactmanager.resources;
 
-import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
 import com.andrijatomic.contactmanager.services.AccountVerificationService;
 import com.andrijatomic.contactmanager.services.EmailService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -163,7 +163,8 @@ public class VerificationResource {
           })
   })
   @GetMapping("/get-phone-verification-code")
-  public ResponseEntity<?> getPhoneVerificationCode(@AuthenticationPrincipal AppUser loggedInUser) {
+  public ResponseEntity<?> getPhoneVerificationCode(
+      @AuthenticationPrincipal AppUserPrincipal loggedInUser) {
     return verificationService.createPhoneVerificationCode(loggedInUser);
   }
 
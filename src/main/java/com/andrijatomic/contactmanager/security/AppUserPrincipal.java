@@ -0,0 +1,65 @@
+package com.andrijatomic.contactmanager.security;
+
+import com.andrijatomic.contactmanager.repos.projections.AppUserCredentialsView;
+import java.util.List;
+import java.util.Objects;
+import lombok.ToString;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authenticated user as seen by the security layer. Holds only what is needed to authenticate
+ * and authorize a request, so it can be cached without dragging the user's contacts along.
+ */
+@Value
+public class AppUserPrincipal implements UserDetails {
+
+  Long id;
+  Long tsid;
+  String email;
+  @ToString.Exclude
+  String password;
+  boolean enabled;
+  List<GrantedAuthority> authorities;
+
+  public static AppUserPrincipal fromCredentials(List<AppUserCredentialsView> rows) {
+    AppUserCredentialsView user = rows.get(0);
+
+    List<GrantedAuthority> authorities = rows.stream()
+        .map(AppUserCredentialsView::getRoleName)
+        .filter(Objects::nonNull)
+        .distinct()
+        .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+        .toList();
+
+    return new AppUserPrincipal(user.getId(), user.getTsid(), user.getEmail(), user.getPassword(),
+        Boolean.TRUE.equals(user.getEnabled()), authorities);
+  }
+
+  public boolean hasAuthority(String authority) {
+    return authorities.stream()
+        .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals(authority));
+  }
+
+  @Override
+  public String getUsername() {
+    return email;
+  }
+
+  @Override
+  public boolean isAccountNonExpired() {
+    return true;
+  }
+
+  @Override
+  public boolean isAccountNonLocked() {
+    return true;
+  }
+
+  @Override
+  public boolean isCredentialsNonExpired() {
+    return true;
+  }
+}
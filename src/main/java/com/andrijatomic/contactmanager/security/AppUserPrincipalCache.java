@@ -0,0 +1,41 @@
+package com.andrijatomic.contactmanager.security;
+
+import com.andrijatomic.contactmanager.utils.ExpiringCache;
+import com.andrijatomic.contactmanager.utils.TransactionCallbacks;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class AppUserPrincipalCache {
+
+  private final ExpiringCache<String, AppUserPrincipal> principals;
+
+  public AppUserPrincipalCache(
+      @Value("${contactmanager.security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+      @Value("${contactmanager.security.principal-cache.max-size:10000}") int maxSize) {
+    this.principals = new ExpiringCache<>(Duration.ofSeconds(ttlSeconds), maxSize);
+  }
+
+  public AppUserPrincipal get(String email, Function<String, AppUserPrincipal> loader) {
+    return principals.get(email, loader);
+  }
+
+  /**
+   * Evicts the user's principal now and again once the surrounding transaction commits, so a
+   * request racing the update can't put the old state back into the cache. Without a
+   * transaction it is evicted once, right away.
+   */
+  public void evict(Long userTsid) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      evictNow(userTsid);
+    }
+    TransactionCallbacks.afterCommit(() -> evictNow(userTsid));
+  }
+
+  private void evictNow(Long userTsid) {
+    principals.invalidateIf(principal -> principal.getTsid().equals(userTsid));
+  }
+}
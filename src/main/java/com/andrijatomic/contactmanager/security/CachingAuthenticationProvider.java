@@ -0,0 +1,52 @@
+package com.andrijatomic.contactmanager.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Wraps the username and password provider with a {@link CredentialVerificationCache}.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+  private final AuthenticationProvider delegate;
+  private final CredentialVerificationCache credentialCache;
+
+  public CachingAuthenticationProvider(AuthenticationProvider delegate,
+      CredentialVerificationCache credentialCache) {
+    this.delegate = delegate;
+    this.credentialCache = credentialCache;
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+
+    if (authentication.getName() == null || authentication.getCredentials() == null) {
+      return delegate.authenticate(authentication);
+    }
+
+    String key = credentialCache
+        .keyFor(authentication.getName(), authentication.getCredentials().toString());
+
+    AppUserPrincipal cached = credentialCache.lookup(key);
+    if (cached != null) {
+      UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken
+          .authenticated(cached, null, cached.getAuthorities());
+      result.setDetails(authentication.getDetails());
+      return result;
+    }
+
+    Authentication result = delegate.authenticate(authentication);
+    if (result != null && result.getPrincipal() instanceof AppUserPrincipal principal) {
+      credentialCache.remember(key, principal);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return delegate.supports(authentication);
+  }
+}
@@ -0,0 +1,99 @@
+package com.andrijatomic.contactmanager.security;
+
+import com.andrijatomic.contactmanager.utils.ExpiringCache;
+import com.andrijatomic.contactmanager.utils.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers successful HTTP Basic credential checks for a short time, so a client repeating the
+ * same credentials pays for one BCrypt hash per TTL instead of one per request. Entries are keyed
+ * by an HMAC of the username and password under a per-process random key, so neither the
+ * password nor a plain hash of it is ever kept in memory.
+ */
+@Component
+public class CredentialVerificationCache {
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+  private final ExpiringCache<String, AppUserPrincipal> verifiedCredentials;
+  private final ThreadLocal<Mac> macs;
+  private final Counter hits;
+  private final Counter misses;
+
+  public CredentialVerificationCache(
+      @Value("${contactmanager.security.credential-cache.ttl-seconds:30}") long ttlSeconds,
+      @Value("${contactmanager.security.credential-cache.max-size:10000}") int maxSize,
+      MeterRegistry meterRegistry) {
+
+    this.verifiedCredentials = new ExpiringCache<>(Duration.ofSeconds(ttlSeconds), maxSize);
+
+    byte[] hmacKey = new byte[32];
+    new SecureRandom().nextBytes(hmacKey);
+    SecretKeySpec keySpec = new SecretKeySpec(hmacKey, HMAC_ALGORITHM);
+    this.macs = ThreadLocal.withInitial(() -> {
+      try {
+        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+        mac.init(keySpec);
+        return mac;
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    this.hits = Counter.builder("contactmanager.security.credential.cache")
+        .tag("result", "hit")
+        .description("HTTP Basic credential checks answered from the cache")
+        .register(meterRegistry);
+    this.misses = Counter.builder("contactmanager.security.credential.cache")
+        .tag("result", "miss")
+        .description("HTTP Basic credential checks that needed a password hash")
+        .register(meterRegistry);
+  }
+
+  public String keyFor(String username, String password) {
+    byte[] digest = macs.get()
+        .doFinal((username + '\0' + password).getBytes(StandardCharsets.UTF_8));
+    return Base64.getEncoder().encodeToString(digest);
+  }
+
+  public AppUserPrincipal lookup(String key) {
+    AppUserPrincipal principal = verifiedCredentials.getIfPresent(key);
+
+    if (principal == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return principal;
+  }
+
+  public void remember(String key, AppUserPrincipal principal) {
+    verifiedCredentials.put(key, principal);
+  }
+
+  /**
+   * Forgets the user's verified credentials now and again once the surrounding transaction
+   * commits, or once right away without a transaction.
+   */
+  public void evict(Long userTsid) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      evictNow(userTsid);
+    }
+    TransactionCallbacks.afterCommit(() -> evictNow(userTsid));
+  }
+
+  private void evictNow(Long userTsid) {
+    verifiedCredentials.invalidateIf(principal -> principal.getTsid().equals(userTsid));
+  }
+}
@@ -0,0 +1,51 @@
+package com.andrijatomic.contactmanager.security;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates requests carrying an {@code Authorization: Bearer} access token. Requests with a
+ * missing or invalid token continue unauthenticated and are handled by the authorization rules.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final JwtService jwtService;
+
+  public JwtAuthenticationFilter(JwtService jwtService) {
+    this.jwtService = jwtService;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+    if (header != null && header.startsWith(BEARER_PREFIX)) {
+      try {
+        AppUserPrincipal principal = jwtService
+            .parseAccessToken(header.substring(BEARER_PREFIX.length()));
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken
+            .authenticated(principal, null, principal.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+      } catch (JwtException | IllegalArgumentException e) {
+        SecurityContextHolder.clearContext();
+      }
+    }
+
+    filterChain.doFilter(request, response);
+  }
+}
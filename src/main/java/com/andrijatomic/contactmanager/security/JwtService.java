@@ -0,0 +1,147 @@
+package com.andrijatomic.contactmanager.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and validates the signed access and refresh tokens. An access token carries everything
+ * needed to build an {@link AppUserPrincipal}, so validating it needs neither the database nor a
+ * password hash. Access tokens are only issued to enabled users and can't be revoked, which is why
+ * they are short-lived. A refresh token carries the user's token version, and is revoked by the
+ * database bumping it when the password changes or the user is disabled.
+ */
+@Slf4j
+@Service
+public class JwtService {
+
+  public record RefreshToken(String email, int tokenVersion) {
+
+  }
+
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String USER_TSID_CLAIM = "tsid";
+  private static final String ROLES_CLAIM = "roles";
+  private static final String TOKEN_TYPE_CLAIM = "typ";
+  private static final String TOKEN_VERSION_CLAIM = "ver";
+  private static final String ACCESS_TOKEN = "access";
+  private static final String REFRESH_TOKEN = "refresh";
+
+  private final Key key;
+  private final JwtParser parser;
+  private final Duration accessTokenTtl;
+  private final Duration refreshTokenTtl;
+
+  public JwtService(
+      @Value("${contactmanager.security.jwt.secret:}") String secret,
+      @Value("${contactmanager.security.jwt.access-token-ttl-minutes:15}") long accessTokenMinutes,
+      @Value("${contactmanager.security.jwt.refresh-token-ttl-days:7}") long refreshTokenDays) {
+
+    if (secret.isBlank()) {
+      log.warn("contactmanager.security.jwt.secret is not set, using a random key."
+          + " Issued tokens will not survive a restart.");
+      this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    } else {
+      this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+    this.accessTokenTtl = Duration.ofMinutes(accessTokenMinutes);
+    this.refreshTokenTtl = Duration.ofDays(refreshTokenDays);
+  }
+
+  public String createAccessToken(AppUserPrincipal principal) {
+    Instant now = Instant.now();
+
+    return Jwts.builder()
+        .setSubject(principal.getEmail())
+        .claim(USER_ID_CLAIM, principal.getId().toString())
+        .claim(USER_TSID_CLAIM, principal.getTsid().toString())
+        .claim(ROLES_CLAIM, principal.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .toList())
+        .claim(TOKEN_TYPE_CLAIM, ACCESS_TOKEN)
+        .setIssuedAt(Date.from(now))
+        .setExpiration(Date.from(now.plus(accessTokenTtl)))
+        .signWith(key, SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  public String createRefreshToken(AppUserPrincipal principal, int tokenVersion) {
+    Instant now = Instant.now();
+
+    return Jwts.builder()
+        .setSubject(principal.getEmail())
+        .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN)
+        .claim(TOKEN_VERSION_CLAIM, tokenVersion)
+        .setIssuedAt(Date.from(now))
+        .setExpiration(Date.from(now.plus(refreshTokenTtl)))
+        .signWith(key, SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  public long getAccessTokenTtlSeconds() {
+    return accessTokenTtl.toSeconds();
+  }
+
+  /**
+   * @throws JwtException if the token is malformed, expired, wrongly signed or not an access token
+   */
+  public AppUserPrincipal parseAccessToken(String token) {
+    Claims claims = parse(token, ACCESS_TOKEN);
+
+    List<?> roles = claims.get(ROLES_CLAIM, List.class);
+    List<GrantedAuthority> authorities = roles.stream()
+        .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.toString()))
+        .toList();
+
+    return new AppUserPrincipal(
+        Long.parseLong(claims.get(USER_ID_CLAIM, String.class)),
+        Long.parseLong(claims.get(USER_TSID_CLAIM, String.class)),
+        claims.getSubject(),
+        null,
+        // Only enabled users get access tokens, disabling one takes effect when it expires
+        true,
+        authorities
+    );
+  }
+
+  /**
+   * Returns the email of the user the refresh token was issued to and the token version it was
+   * issued with.
+   *
+   * @throws JwtException if the token is malformed, expired, wrongly signed or not a refresh token
+   */
+  public RefreshToken parseRefreshToken(String token) {
+    Claims claims = parse(token, REFRESH_TOKEN);
+    Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+
+    if (tokenVersion == null) {
+      throw new JwtException("Refresh token has no version");
+    }
+    return new RefreshToken(claims.getSubject(), tokenVersion);
+  }
+
+  private Claims parse(String token, String expectedType) {
+    Claims claims = parser.parseClaimsJws(token).getBody();
+
+    if (!expectedType.equals(claims.get(TOKEN_TYPE_CLAIM, String.class))) {
+      throw new JwtException("Expected " + expectedType + " token");
+    }
+    return claims;
+  }
+}
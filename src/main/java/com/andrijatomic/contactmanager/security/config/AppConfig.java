@@ -2,6 +2,12 @@ package com.andrijatomic.contactmanager.security.config;
 
 import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
+import com.andrijatomic.contactmanager.repos.projections.AppUserCredentialsView;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.AppUserPrincipalCache;
+import com.andrijatomic.contactmanager.security.CachingAuthenticationProvider;
+import com.andrijatomic.contactmanager.security.CredentialVerificationCache;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,11 +24,21 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public class AppConfig {
 
   private final AppUserRepo appUserRepo;
+  private final AppUserPrincipalCache principalCache;
+  private final CredentialVerificationCache credentialCache;
 
   @Bean
   public UserDetailsService userDetailsService() {
-    return username -> appUserRepo.findByEmail(username)
-        .orElseThrow(() -> new AppUserNotFoundException("email", username));
+    return username -> principalCache.get(username, this::loadPrincipal);
+  }
+
+  private AppUserPrincipal loadPrincipal(String email) {
+    List<AppUserCredentialsView> credentials = appUserRepo.findCredentialsByEmail(email);
+
+    if (credentials.isEmpty()) {
+      throw new AppUserNotFoundException("email", email);
+    }
+    return AppUserPrincipal.fromCredentials(credentials);
   }
 
   @Bean
@@ -32,7 +48,7 @@ public class AppConfig {
     authenticationProvider.setUserDetailsService(userDetailsService());
     authenticationProvider.setPasswordEncoder(passwordEncoder());
 
-    return authenticationProvider;
+    return new CachingAuthenticationProvider(authenticationProvider, credentialCache);
   }
 
   @Bean
@@ -1,8 +1,14 @@
 package com.andrijatomic.contactmanager.security.config;
 
+import com.andrijatomic.contactmanager.security.JwtAuthenticationFilter;
+import com.andrijatomic.contactmanager.security.JwtService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -11,6 +17,8 @@ import org.springframework.security.config.annotation.web.configurers.AbstractHt
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer.FrameOptionsConfig;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @EnableWebSecurity
 @Configuration
@@ -18,8 +26,39 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
   private final AuthenticationProvider authProvider;
+  private final JwtService jwtService;
 
+  @Value("${contactmanager.security.http-basic.enabled:true}")
+  private boolean httpBasicEnabled;
+
+  /**
+   * Login always accepts HTTP Basic credentials, it is where they get exchanged for tokens.
+   */
   @Bean
+  @Order(1)
+  public SecurityFilterChain loginFilterChain(HttpSecurity http) throws Exception {
+
+    http
+        .securityMatcher("/login/**")
+        .cors(Customizer.withDefaults())
+        .csrf(AbstractHttpConfigurer::disable)
+        .authorizeHttpRequests((requests) -> requests
+            .requestMatchers(HttpMethod.GET, "/login")
+            .authenticated()
+            .anyRequest()
+            .permitAll()
+        )
+        .httpBasic(Customizer.withDefaults())
+        .sessionManagement(session -> session
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+        )
+        .authenticationProvider(authProvider);
+
+    return http.build();
+  }
+
+  @Bean
+  @Order(2)
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
     http
@@ -38,12 +77,22 @@ public class SecurityConfig {
             .anyRequest()
             .permitAll()
         )
-        .httpBasic(Customizer.withDefaults())
+        .addFilterBefore(new JwtAuthenticationFilter(jwtService), BasicAuthenticationFilter.class)
         .sessionManagement(session -> session
             .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         )
         .authenticationProvider(authProvider);
 
+    if (httpBasicEnabled) {
+      http.httpBasic(Customizer.withDefaults());
+    } else {
+      http
+          .httpBasic(AbstractHttpConfigurer::disable)
+          .exceptionHandling(exceptions -> exceptions
+              .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+          );
+    }
+
     return http.build();
   }
 }
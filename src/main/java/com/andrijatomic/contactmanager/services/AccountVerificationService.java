@@ -1,11 +1,14 @@
 package com.andrijatomic.contactmanager.services;
 
+import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.models.AccountVerification;
 import com.andrijatomic.contactmanager.models.AppUser;
 import com.andrijatomic.contactmanager.models.SmsVerification;
 import com.andrijatomic.contactmanager.repos.AccountVerificationRepo;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
 import com.andrijatomic.contactmanager.repos.PhoneVerificationRepo;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.AppUserPrincipalCache;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -22,13 +25,16 @@ public class AccountVerificationService {
   private final AppUserRepo appUserRepo;
   private final PhoneVerificationRepo phoneVerificationRepo;
   private final SmsService smsService;
+  private final AppUserPrincipalCache principalCache;
 
   public AccountVerificationService(AccountVerificationRepo accountVerificationRepo,
-      AppUserRepo appUserRepo, PhoneVerificationRepo phoneVerificationRepo, SmsService smsService) {
+      AppUserRepo appUserRepo, PhoneVerificationRepo phoneVerificationRepo, SmsService smsService,
+      AppUserPrincipalCache principalCache) {
     this.accountVerificationRepo = accountVerificationRepo;
     this.appUserRepo = appUserRepo;
     this.phoneVerificationRepo = phoneVerificationRepo;
     this.smsService = smsService;
+    this.principalCache = principalCache;
   }
 
   public AccountVerification createVerifyLink(AppUser appUser) {
@@ -46,17 +52,21 @@ public class AccountVerificationService {
       user.setEnabled(true);
 
       appUserRepo.save(user);
+      principalCache.evict(user.getTsid());
 
       return true;
     }
     return false;
   }
 
-  public ResponseEntity<?> createPhoneVerificationCode(AppUser loggedInUser) {
+  public ResponseEntity<?> createPhoneVerificationCode(AppUserPrincipal loggedInUser) {
 
-    if (!loggedInUser.isPhoneVerified()) {
-      String verificationCode = smsService.sendSms(loggedInUser.getPhoneNumber());
-      phoneVerificationRepo.save(new SmsVerification(null, loggedInUser, verificationCode, LocalDateTime.now()));
+    AppUser user = appUserRepo.getAppUserByTsid(loggedInUser.getTsid())
+        .orElseThrow(() -> new AppUserNotFoundException("tsid", loggedInUser.getTsid().toString()));
+
+    if (!user.isPhoneVerified()) {
+      String verificationCode = smsService.sendSms(user.getPhoneNumber());
+      phoneVerificationRepo.save(new SmsVerification(null, user, verificationCode, LocalDateTime.now()));
       return new ResponseEntity<>(HttpStatus.OK);
     }
 
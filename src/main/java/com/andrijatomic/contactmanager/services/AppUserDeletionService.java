@@ -0,0 +1,73 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.dtos.AppUserDeletionResultDTO;
+import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes a user and everything that belongs to them with set-based statements instead of
+ * loading the contacts into the persistence context. The contacts go in batches, each committed
+ * on its own, so deleting a large address book never holds its locks for long. The rows left
+ * after the last batch are removed together with the user in one final transaction.
+ */
+@Slf4j
+@Service
+public class AppUserDeletionService {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+
+  public AppUserDeletionService(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${contactmanager.user-deletion.batch-size:5000}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Must not be called inside a transaction, the batches have to commit one by one.
+   *
+   * @throws AppUserNotFoundException if there is no user with the TSID
+   */
+  public AppUserDeletionResultDTO deleteAppUser(Long tsid) {
+
+    List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM users WHERE tsid = ?",
+        Long.class, tsid);
+    if (ids.isEmpty()) {
+      throw new AppUserNotFoundException("TSID", tsid.toString());
+    }
+    long appUserId = ids.get(0);
+
+    long contacts = 0;
+    int deleted;
+    do {
+      deleted = transactionTemplate.execute(status -> jdbcTemplate.update(
+          "DELETE FROM contacts WHERE id IN"
+              + " (SELECT id FROM contacts WHERE app_user_id = ? LIMIT ?)",
+          appUserId, batchSize));
+      contacts += deleted;
+    } while (deleted == batchSize);
+
+    long remainingContacts = contacts;
+    AppUserDeletionResultDTO result = transactionTemplate.execute(status ->
+        new AppUserDeletionResultDTO(
+            remainingContacts
+                + jdbcTemplate.update("DELETE FROM contacts WHERE app_user_id = ?", appUserId),
+            jdbcTemplate.update("DELETE FROM account_verifications WHERE user_id = ?", appUserId),
+            jdbcTemplate.update("DELETE FROM phone_verifications WHERE user_tsid = ?", appUserId),
+            jdbcTemplate.update("DELETE FROM user_roles WHERE user_id = ?", appUserId),
+            jdbcTemplate.update("DELETE FROM contact_imports WHERE app_user_id = ?", appUserId),
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", appUserId)));
+
+    log.info("Deleted user {}: {}", tsid, result);
+    return result;
+  }
+}
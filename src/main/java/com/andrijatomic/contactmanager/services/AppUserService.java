@@ -1,6 +1,7 @@
 package com.andrijatomic.contactmanager.services;
 
 import com.andrijatomic.contactmanager.dtos.AddAppUserRequestDTO;
+import com.andrijatomic.contactmanager.dtos.AppUserDeletionResultDTO;
 import com.andrijatomic.contactmanager.dtos.AppUserResponseDTO;
 import com.andrijatomic.contactmanager.dtos.AppUserRoleResponseDTO;
 import com.andrijatomic.contactmanager.dtos.UpdateAppUserRequestDTO;
@@ -8,22 +9,30 @@ import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.models.AccountVerification;
 import com.andrijatomic.contactmanager.models.AppUser;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
-import com.andrijatomic.contactmanager.repos.RoleRepo;
+import com.andrijatomic.contactmanager.repos.projections.AppUserRoleView;
+import com.andrijatomic.contactmanager.repos.projections.AppUserView;
+import com.andrijatomic.contactmanager.repos.projections.AppUserWithRoles;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.AppUserPrincipalCache;
+import com.andrijatomic.contactmanager.security.CredentialVerificationCache;
 import com.andrijatomic.contactmanager.utils.AddAppUserRequestDTOMapper;
 import com.andrijatomic.contactmanager.utils.AppUserResponseDTOMapper;
 import com.andrijatomic.contactmanager.utils.CountUtil;
-import com.andrijatomic.contactmanager.utils.RoleTsidToRoleConverterUtil;
+import com.andrijatomic.contactmanager.utils.RoleCatalog;
 import com.andrijatomic.contactmanager.utils.UpdateAppUserRequestDTOMapper;
 import com.github.f4b6a3.tsid.TsidCreator;
-import jakarta.mail.MessagingException;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -34,100 +43,130 @@ public class AppUserService {
   private final AddAppUserRequestDTOMapper addAppUserRequestDTOMapper;
 
   private final UpdateAppUserRequestDTOMapper updateRequestDTOMapper;
-  private final RoleRepo roleRepo;
+  private final RoleCatalog roleCatalog;
   private final AccountVerificationService verificationService;
   private final EmailService emailService;
   private final PasswordEncoder encoder;
+  private final AppUserPrincipalCache principalCache;
+  private final CredentialVerificationCache credentialCache;
+  private final AppUserDeletionService appUserDeletionService;
 
   public AppUserService(AppUserRepo appUserRepo, AppUserResponseDTOMapper appUserResponseDTOMapper,
       AddAppUserRequestDTOMapper addAppUserRequestDTOMapper,
-      UpdateAppUserRequestDTOMapper updateAppUserRequestDTOMapper, RoleRepo roleRepo,
+      UpdateAppUserRequestDTOMapper updateAppUserRequestDTOMapper, RoleCatalog roleCatalog,
       AccountVerificationService verificationService, EmailService emailService,
-      PasswordEncoder encoder) {
+      PasswordEncoder encoder, AppUserPrincipalCache principalCache,
+      CredentialVerificationCache credentialCache,
+      AppUserDeletionService appUserDeletionService) {
     this.appUserRepo = appUserRepo;
     this.appUserResponseDTOMapper = appUserResponseDTOMapper;
     this.addAppUserRequestDTOMapper = addAppUserRequestDTOMapper;
     this.updateRequestDTOMapper = updateAppUserRequestDTOMapper;
-    this.roleRepo = roleRepo;
+    this.roleCatalog = roleCatalog;
     this.verificationService = verificationService;
     this.emailService = emailService;
     this.encoder = encoder;
+    this.principalCache = principalCache;
+    this.credentialCache = credentialCache;
+    this.appUserDeletionService = appUserDeletionService;
   }
 
   public AppUserResponseDTO getAppUser(Long tsid) {
-    return appUserRepo.getAppUserByTsid(tsid)
-        .map(appUserResponseDTOMapper)
+    return appUserRepo.findViewByTsid(tsid)
+        .map(appUser -> toResponses(List.of(appUser)).get(0))
         .orElseThrow(() -> new AppUserNotFoundException("TSID", tsid.toString()));
   }
 
   public List<AppUserResponseDTO> getAllAppUsers(int page, int size, String sortByProperty) {
-    return appUserRepo.findAll(PageRequest.of(page, size, Sort.by(sortByProperty)))
-        .stream()
-        .map(appUserResponseDTOMapper)
-        .collect(Collectors.toList());
+
+    // The query only selects a projection, check the property against the entity up front
+    PropertyPath.from(sortByProperty, AppUser.class);
+
+    return toResponses(appUserRepo
+        .findAllViews(PageRequest.of(page, size, Sort.by(sortByProperty))));
   }
 
-  public ResponseEntity<?> addAppUser(AddAppUserRequestDTO addAppUserRequestDTO)
-      throws MessagingException {
+  public ResponseEntity<?> addAppUser(AddAppUserRequestDTO addAppUserRequestDTO) {
 
     AppUser appUser = addAppUserRequestDTOMapper.apply(addAppUserRequestDTO);
 
     appUser.setTsid(TsidCreator.getTsid().toLong());
     appUser.setPassword(encoder.encode(appUser.getPassword()));
 
-    appUser.setRoles(RoleTsidToRoleConverterUtil
-        .convertToRoles(addAppUserRequestDTO.userRoleTsids(), roleRepo)
-    );
+    appUser.setRoles(roleCatalog.getByTsids(addAppUserRequestDTO.userRoleTsids()));
 
     AppUser addedUser = appUserRepo.save(appUser);
     AccountVerification verification = verificationService.createVerifyLink(addedUser);
 
     emailService.sendMail(addedUser, verification);
 
-    AppUserResponseDTO responseDTO = appUserRepo.getAppUserByTsid(addedUser.getTsid())
-        .map(appUserResponseDTOMapper)
-        .orElseThrow(() -> new AppUserNotFoundException("TSID", addedUser.getTsid().toString()));
-
-    return new ResponseEntity<>(responseDTO, HttpStatus.CREATED);
+    return new ResponseEntity<>(getAppUser(addedUser.getTsid()), HttpStatus.CREATED);
   }
 
   public AppUserResponseDTO updateAppUser(
-      UpdateAppUserRequestDTO updateAppUserRequestDTO, AppUser loggedInUser) {
+      UpdateAppUserRequestDTO updateAppUserRequestDTO, AppUserPrincipal loggedInUser) {
 
     AppUser updatedUser = appUserRepo
         .save(updateRequestDTOMapper.map(updateAppUserRequestDTO, loggedInUser));
+    principalCache.evict(updatedUser.getTsid());
 
-    return appUserRepo.getAppUserByTsid(updatedUser.getTsid())
-        .map(appUserResponseDTOMapper)
-        .orElseThrow(() -> new AppUserNotFoundException("TSID", updatedUser.getTsid().toString()));
+    return getAppUser(updatedUser.getTsid());
   }
 
-  public void deleteAppUser(Long tsid) {
-
-    if (appUserRepo.getAppUserByTsid(tsid).isEmpty()) {
-      throw new AppUserNotFoundException("TSID", tsid.toString());
-    } else {
-      appUserRepo.deleteAppUserByTsid(tsid);
-    }
+  /**
+   * Runs without a surrounding transaction, the deletion commits its contact batches one by one.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public AppUserDeletionResultDTO deleteAppUser(Long tsid) {
 
+    AppUserDeletionResultDTO result = appUserDeletionService.deleteAppUser(tsid);
+    principalCache.evict(tsid);
+    credentialCache.evict(tsid);
+    return result;
   }
 
-  public ResponseEntity<?> getAllRoles() {
+  /**
+   * Serves the roles from the role catalog, with the catalog's ETag.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> getAllRoles(HttpHeaders requestHeaders) {
 
-    List<AppUserRoleResponseDTO> roles = roleRepo
-        .findAll()
-        .stream()
-        .map(role -> new AppUserRoleResponseDTO(role.getTsid().toString(), role.getRoleName()))
-        .collect(Collectors.toList());
+    List<AppUserRoleResponseDTO> roles = roleCatalog.getAll();
 
     if(roles.isEmpty()) {
       return new ResponseEntity<>("No roles found", HttpStatus.NOT_FOUND);
     }
 
-    return new ResponseEntity<>(roles, HttpStatus.OK);
+    String eTag = roleCatalog.getETag();
+    if (requestHeaders.getIfNoneMatch().contains(eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    return ResponseEntity.ok().eTag(eTag).body(roles);
   }
 
   public ResponseEntity<?> countAllAppUsers() {
     return CountUtil.count(appUserRepo);
   }
+
+  /**
+   * Maps the users with the roles of all of them loaded in one statement.
+   */
+  private List<AppUserResponseDTO> toResponses(List<AppUserView> appUsers) {
+
+    if (appUsers.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, List<AppUserRoleView>> rolesByUserId = appUserRepo
+        .findRolesByUserIds(appUsers.stream().map(AppUserView::getId).toList())
+        .stream()
+        .collect(Collectors.groupingBy(AppUserRoleView::getUserId));
+
+    return appUsers.stream()
+        .map(appUser -> new AppUserWithRoles(appUser,
+            rolesByUserId.getOrDefault(appUser.getId(), List.of())))
+        .map(appUserResponseDTOMapper)
+        .collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,74 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.dtos.LoginResponseDTO;
+import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
+import com.andrijatomic.contactmanager.repos.AppUserRepo;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.JwtService;
+import com.andrijatomic.contactmanager.security.JwtService.RefreshToken;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AuthenticationService {
+
+  private final JwtService jwtService;
+  private final UserDetailsService userDetailsService;
+  private final AppUserService appUserService;
+  private final AppUserRepo appUserRepo;
+
+  public AuthenticationService(JwtService jwtService, UserDetailsService userDetailsService,
+      AppUserService appUserService, AppUserRepo appUserRepo) {
+    this.jwtService = jwtService;
+    this.userDetailsService = userDetailsService;
+    this.appUserService = appUserService;
+    this.appUserRepo = appUserRepo;
+  }
+
+  public LoginResponseDTO login(AppUserPrincipal loggedInUser) {
+    return new LoginResponseDTO(
+        jwtService.createAccessToken(loggedInUser),
+        jwtService.createRefreshToken(loggedInUser,
+            appUserRepo.findTokenVersionById(loggedInUser.getId())),
+        "Bearer",
+        jwtService.getAccessTokenTtlSeconds(),
+        appUserService.getAppUser(loggedInUser.getTsid())
+    );
+  }
+
+  /**
+   * Refreshes only for an enabled user whose token version still matches the one the refresh
+   * token was issued with, a password change or disabling the user revokes it.
+   */
+  public ResponseEntity<?> refresh(String refreshToken) {
+
+    AppUserPrincipal user;
+    RefreshToken token;
+    try {
+      token = jwtService.parseRefreshToken(refreshToken);
+      user = (AppUserPrincipal) userDetailsService.loadUserByUsername(token.email());
+    } catch (JwtException | IllegalArgumentException | AppUserNotFoundException e) {
+      return new ResponseEntity<>("Invalid refresh token", HttpStatus.UNAUTHORIZED);
+    }
+
+    if (!user.isEnabled()) {
+      return new ResponseEntity<>("User is disabled", HttpStatus.UNAUTHORIZED);
+    }
+
+    int tokenVersion = appUserRepo.findTokenVersionById(user.getId());
+    if (tokenVersion != token.tokenVersion()) {
+      return new ResponseEntity<>("Invalid refresh token", HttpStatus.UNAUTHORIZED);
+    }
+
+    return new ResponseEntity<>(new LoginResponseDTO(
+        jwtService.createAccessToken(user),
+        jwtService.createRefreshToken(user, tokenVersion),
+        "Bearer",
+        jwtService.getAccessTokenTtlSeconds(),
+        null
+    ), HttpStatus.OK);
+  }
+}
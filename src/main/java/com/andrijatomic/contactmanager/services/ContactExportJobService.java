@@ -0,0 +1,108 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.services.ContactExportService.Snapshot;
+import com.andrijatomic.contactmanager.utils.ExportJob;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes CSV exports in the background, so a large export doesn't hold a request thread for its
+ * whole duration. The written file is the export snapshot of the user's contacts version, so a
+ * job for a version that has already been exported completes right away with that file.
+ *
+ * <p>A request for an export that is still queued attaches to the queued job, it will export the
+ * version current when it starts anyway.
+ */
+@Slf4j
+@Service
+public class ContactExportJobService {
+
+  static final String EXPORT_FAILED = "Contact export failed";
+
+  private final ContactExportService contactExportService;
+  private final ThreadPoolTaskExecutor contactExportExecutor;
+  private final Duration jobRetention;
+  private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+  private final Map<String, ExportJob> queuedJobsByExport = new ConcurrentHashMap<>();
+
+  public ContactExportJobService(ContactExportService contactExportService,
+      @Qualifier("contactExportExecutor") ThreadPoolTaskExecutor contactExportExecutor,
+      @Value("${contactmanager.export.job-retention-minutes:60}") long jobRetentionMinutes) {
+    this.contactExportService = contactExportService;
+    this.contactExportExecutor = contactExportExecutor;
+    this.jobRetention = Duration.ofMinutes(jobRetentionMinutes);
+  }
+
+  /**
+   * @throws TaskRejectedException if the export queue is full
+   */
+  public ExportJob submit(Long appUserId, boolean gzip) {
+    purgeExpiredJobs();
+
+    ExportJob job = new ExportJob(UUID.randomUUID().toString(), appUserId, gzip);
+
+    Optional<Snapshot> cached = contactExportService.findSnapshot(appUserId, gzip);
+    if (cached.isPresent()) {
+      job.start();
+      job.complete(cached.get());
+      jobs.put(job.getId(), job);
+      return job;
+    }
+
+    String exportKey = appUserId + ":" + gzip;
+    ExportJob queued = queuedJobsByExport.putIfAbsent(exportKey, job);
+    if (queued != null) {
+      return queued;
+    }
+
+    jobs.put(job.getId(), job);
+
+    try {
+      contactExportExecutor.execute(() -> run(job, exportKey));
+    } catch (TaskRejectedException e) {
+      jobs.remove(job.getId());
+      queuedJobsByExport.remove(exportKey, job);
+      throw e;
+    }
+    return job;
+  }
+
+  public Optional<ExportJob> getJob(String jobId, Long appUserId) {
+    return Optional.ofNullable(jobs.get(jobId))
+        .filter(job -> job.getAppUserId().equals(appUserId));
+  }
+
+  private void run(ExportJob job, String exportKey) {
+    // Released before the version is read, a later change to the contacts needs a new job
+    queuedJobsByExport.remove(exportKey, job);
+    job.start();
+
+    try {
+      job.complete(contactExportService.snapshot(job.getAppUserId(), job.isGzip()));
+    } catch (Exception e) {
+      // The cause can name files, SQL and constraints, it's only logged
+      log.error("Contact export {} failed", job.getId(), e);
+      job.fail(EXPORT_FAILED);
+    }
+  }
+
+  /**
+   * Only forgets the jobs, the snapshot files belong to the export service and are replaced when
+   * the contacts change.
+   */
+  private void purgeExpiredJobs() {
+    Instant cutoff = Instant.now().minus(jobRetention);
+
+    jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+  }
+}
@@ -0,0 +1,161 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import com.andrijatomic.contactmanager.repos.ContactRepo;
+import com.andrijatomic.contactmanager.utils.ContactCsvUtil;
+import com.opencsv.ICSVWriter;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps the CSV export of every user as a file named after the user's contacts version, which the
+ * database bumps on every change to the user's contacts. A snapshot is written once per version
+ * and served from disk until the contacts change, plain and gzip compressed separately.
+ *
+ * <p>A snapshot that has been replaced by a newer version is kept for a grace period, a download
+ * that was handed its path just before the replacement can still open it.
+ */
+@Slf4j
+@Service
+public class ContactExportService {
+
+  public record Snapshot(Path file, long version, boolean gzip) {
+
+  }
+
+  private final ContactRepo contactRepo;
+  private final JdbcTemplate jdbcTemplate;
+  private final Path snapshotDirectory;
+  private final Duration gracePeriod;
+
+  public ContactExportService(ContactRepo contactRepo, JdbcTemplate jdbcTemplate,
+      @Value("${contactmanager.export.snapshot-dir:${java.io.tmpdir}/contact-exports}")
+      String snapshotDirectory,
+      @Value("${contactmanager.export.snapshot-grace-seconds:300}") long graceSeconds) {
+    this.contactRepo = contactRepo;
+    this.jdbcTemplate = jdbcTemplate;
+    this.snapshotDirectory = Path.of(snapshotDirectory);
+    this.gracePeriod = Duration.ofSeconds(graceSeconds);
+  }
+
+  public long getContactsVersion(Long appUserId) {
+    return jdbcTemplate.queryForObject("SELECT contacts_version FROM users WHERE id = ?",
+        Long.class, appUserId);
+  }
+
+  /**
+   * Returns the snapshot of the user's current contacts version if it has already been written.
+   */
+  public Optional<Snapshot> findSnapshot(Long appUserId, boolean gzip) {
+    long version = getContactsVersion(appUserId);
+    Path file = snapshotDirectory.resolve(fileName(appUserId, version, gzip));
+
+    return Files.exists(file) ? Optional.of(new Snapshot(file, version, gzip)) : Optional.empty();
+  }
+
+  /**
+   * Returns the snapshot of the user's current contacts version, writing it first if needed.
+   * The version and the rows are read from one database snapshot, so every file written for a
+   * version has the same bytes. Downloads are resumed with If-Range against the version's ETag,
+   * and a file with different bytes under the same ETag would splice two exports.
+   */
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  public Snapshot snapshot(Long appUserId, boolean gzip) throws IOException {
+
+    long version = getContactsVersion(appUserId);
+    Path file = snapshotDirectory.resolve(fileName(appUserId, version, gzip));
+
+    if (!Files.exists(file)) {
+      write(appUserId, file, gzip);
+      deleteReplacedSnapshots(appUserId);
+    }
+    return new Snapshot(file, version, gzip);
+  }
+
+  private void write(Long appUserId, Path file, boolean gzip) throws IOException {
+    Files.createDirectories(snapshotDirectory);
+    Path partial = Files.createTempFile(snapshotDirectory, "partial-", ".csv");
+
+    try {
+      try (OutputStream out = gzip
+          ? new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)
+          : Files.newOutputStream(partial);
+          Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+          Stream<ContactResponseDTO> contacts = contactRepo
+              .streamContactResponsesByAppUserId(appUserId)) {
+
+        ICSVWriter csvWriter = ContactCsvUtil.writer(writer);
+        contacts.forEach(contact -> csvWriter.writeNext(ContactCsvUtil.toRow(contact), false));
+        csvWriter.flush();
+      }
+
+      // Concurrent requests may write the same snapshot, they read the same rows
+      Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(partial);
+    }
+  }
+
+  /**
+   * Deletes the snapshots older than the newest version that was written before the grace period,
+   * anything newer may still be about to be opened. The other encoding of a kept version is kept
+   * as well, its download may still be going on.
+   */
+  private void deleteReplacedSnapshots(Long appUserId) {
+    Instant settled = Instant.now().minus(gracePeriod);
+
+    try {
+      List<Path> snapshots = new ArrayList<>();
+      long settledVersion = -1;
+      try (DirectoryStream<Path> files = Files
+          .newDirectoryStream(snapshotDirectory, "contacts-" + appUserId + "-*")) {
+        for (Path snapshot : files) {
+          snapshots.add(snapshot);
+          if (Files.getLastModifiedTime(snapshot).toInstant().isBefore(settled)) {
+            settledVersion = Math.max(settledVersion, version(snapshot));
+          }
+        }
+      }
+
+      for (Path snapshot : snapshots) {
+        if (version(snapshot) < settledVersion) {
+          Files.deleteIfExists(snapshot);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not delete old contact exports of user {}", appUserId, e);
+    }
+  }
+
+  private static long version(Path snapshot) {
+    String name = snapshot.getFileName().toString();
+    String[] parts = name.substring(0, name.indexOf('.')).split("-");
+    return Long.parseLong(parts[2]);
+  }
+
+  private static String fileName(Long appUserId, long version, boolean gzip) {
+    return "contacts-" + appUserId + "-" + version + (gzip ? ".csv.gz" : ".csv");
+  }
+}
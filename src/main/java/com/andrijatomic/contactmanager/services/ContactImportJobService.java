@@ -0,0 +1,279 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.exceptions.ImportRejectedException;
+import com.andrijatomic.contactmanager.models.ContactImport;
+import com.andrijatomic.contactmanager.repos.ContactImportRepo;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportJob;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Runs CSV imports in the background. The upload is spooled to local disk so the request can
+ * return right away, and the job is kept in memory for polling until it expires. A requested
+ * error report is written next to the spooled file and deleted together with the job.
+ *
+ * <p>Uploads are hashed while they are spooled. An upload with the same bytes and mode as one
+ * the user imported within the dedupe window gets the stored result, and one matching an import
+ * that is still running attaches to that job, instead of being imported again.
+ */
+@Slf4j
+@Service
+public class ContactImportJobService {
+
+  static final String IMPORT_FAILED = "Contact import failed";
+
+  private final ContactImportService contactImportService;
+  private final ContactImportRepo contactImportRepo;
+  private final ThreadPoolTaskExecutor contactImportExecutor;
+  private final Path spoolDirectory;
+  private final Duration jobRetention;
+  private final Duration dedupeWindow;
+  private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+  private final Map<String, ImportJob> runningJobsByContent = new ConcurrentHashMap<>();
+
+  public ContactImportJobService(ContactImportService contactImportService,
+      ContactImportRepo contactImportRepo,
+      @Qualifier("contactImportExecutor") ThreadPoolTaskExecutor contactImportExecutor,
+      @Value("${contactmanager.import.spool-dir:${java.io.tmpdir}}") String spoolDirectory,
+      @Value("${contactmanager.import.job-retention-minutes:60}") long jobRetentionMinutes,
+      @Value("${contactmanager.import.dedupe-window-minutes:60}") long dedupeWindowMinutes) {
+    this.contactImportService = contactImportService;
+    this.contactImportRepo = contactImportRepo;
+    this.contactImportExecutor = contactImportExecutor;
+    this.spoolDirectory = Path.of(spoolDirectory);
+    this.jobRetention = Duration.ofMinutes(jobRetentionMinutes);
+    this.dedupeWindow = Duration.ofMinutes(dedupeWindowMinutes);
+  }
+
+  /**
+   * @throws TaskRejectedException if the import queue is full
+   */
+  public ImportJob submit(MultipartFile file, Long appUserId, ImportMode mode,
+      boolean errorReport) throws IOException {
+    return importFile(file, appUserId, mode, errorReport, contactImportExecutor);
+  }
+
+  /**
+   * Imports on the calling thread. The import is still registered as a job, so a retried
+   * request for the same file attaches to it, and the returned job is only unfinished in that
+   * case.
+   */
+  public ImportJob importNow(MultipartFile file, Long appUserId, ImportMode mode)
+      throws IOException {
+    return importFile(file, appUserId, mode, false, Runnable::run);
+  }
+
+  /**
+   * Imports on the calling thread and writes the rejected rows to {@code errorReport}, followed
+   * by the status row. The report may already be on its way to the client, so a rejected or
+   * failed import is reported in that row instead of being thrown. Always imports, a stored
+   * result can't reproduce the report.
+   */
+  public void importWithErrorReport(MultipartFile file, Long appUserId, ImportMode mode,
+      ImportErrorReport errorReport) throws IOException {
+
+    Files.createDirectories(spoolDirectory);
+    Path spooled = Files.createTempFile(spoolDirectory, "contact-import-", ".csv");
+
+    try {
+      file.transferTo(spooled);
+      ImportResultDTO result = contactImportService.importContacts(spooled, appUserId, mode,
+          new ImportProgress(), errorReport);
+      errorReport.finish(ImportJob.Status.COMPLETED, result.message());
+    } catch (ImportRejectedException e) {
+      log.info("Contact import with error report rejected: {}", e.getMessage());
+      errorReport.finish(ImportJob.Status.REJECTED, e.getMessage());
+    } catch (Exception e) {
+      log.error("Contact import with error report failed", e);
+      errorReport.finish(ImportJob.Status.FAILED, IMPORT_FAILED);
+    } finally {
+      Files.deleteIfExists(spooled);
+    }
+  }
+
+  public Optional<ImportJob> getJob(String jobId, Long appUserId) {
+    return Optional.ofNullable(jobs.get(jobId))
+        .filter(job -> job.getAppUserId().equals(appUserId));
+  }
+
+  private ImportJob importFile(MultipartFile file, Long appUserId, ImportMode mode,
+      boolean errorReport, Executor executor) throws IOException {
+    purgeExpiredJobs();
+
+    Files.createDirectories(spoolDirectory);
+    Path spooled = Files.createTempFile(spoolDirectory, "contact-import-", ".csv");
+    String contentHash = spool(file, spooled);
+
+    String jobId = UUID.randomUUID().toString();
+    ImportJob job = new ImportJob(jobId, appUserId, errorReport
+        ? spoolDirectory.resolve("contact-import-errors-" + jobId + ".csv")
+        : null);
+
+    // A report can't be served from a stored result, so those uploads are always imported
+    String contentKey = errorReport ? null : appUserId + ":" + mode + ":" + contentHash;
+
+    if (contentKey != null) {
+      ImportJob running = runningJobsByContent.putIfAbsent(contentKey, job);
+      if (running != null) {
+        Files.deleteIfExists(spooled);
+        return running;
+      }
+
+      // Checked after claiming the key, a finished import records its result before releasing it
+      Optional<ContactImport> previous = contactImportRepo
+          .findFirstByAppUserIdAndContentHashAndModeAndCreatedAtAfter(appUserId, contentHash,
+              mode, LocalDateTime.now().minus(dedupeWindow));
+      if (previous.isPresent()) {
+        runningJobsByContent.remove(contentKey, job);
+        Files.deleteIfExists(spooled);
+        return reuse(job, previous.get());
+      }
+    }
+
+    jobs.put(job.getId(), job);
+
+    try {
+      executor.execute(() -> run(job, spooled, mode, contentHash, contentKey));
+    } catch (TaskRejectedException e) {
+      jobs.remove(job.getId());
+      if (contentKey != null) {
+        runningJobsByContent.remove(contentKey, job);
+      }
+      Files.deleteIfExists(spooled);
+      throw e;
+    }
+    return job;
+  }
+
+  /**
+   * Copies the upload to {@code spooled} and returns the hex SHA-256 of its bytes.
+   */
+  private static String spool(MultipartFile file, Path spooled) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    try (InputStream in = new DigestInputStream(file.getInputStream(), digest);
+        OutputStream out = Files.newOutputStream(spooled)) {
+      in.transferTo(out);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private ImportJob reuse(ImportJob job, ContactImport previous) {
+    ImportResultDTO result = new ImportResultDTO(previous.getImported(), previous.getUpdated(),
+        previous.getUnchanged(), previous.getErrored());
+
+    job.getProgress().rowsRead(previous.getImported() + previous.getUpdated()
+        + previous.getUnchanged() + previous.getErrored());
+    job.getProgress().inserted(previous.getImported());
+    job.getProgress().updated(previous.getUpdated());
+    job.getProgress().unchanged(previous.getUnchanged());
+    job.getProgress().rejected(previous.getErrored());
+    job.start();
+    job.complete(result);
+
+    jobs.put(job.getId(), job);
+    return job;
+  }
+
+  private void run(ImportJob job, Path spooled, ImportMode mode, String contentHash,
+      String contentKey) {
+    job.start();
+
+    try {
+      ImportResultDTO result;
+      if (job.getErrorReport() == null) {
+        result = contactImportService.importContacts(spooled, job.getAppUserId(), mode,
+            job.getProgress(), ImportErrorReport.NONE);
+      } else {
+        try (Writer report = Files.newBufferedWriter(job.getErrorReport(),
+            StandardCharsets.UTF_8)) {
+          result = contactImportService.importContacts(spooled, job.getAppUserId(), mode,
+              job.getProgress(), ImportErrorReport.writingTo(report));
+        }
+      }
+
+      record(job, mode, contentHash, result);
+      job.complete(result);
+    } catch (ImportRejectedException e) {
+      log.info("Contact import {} rejected: {}", job.getId(), e.getMessage());
+      job.reject(e.getMessage());
+    } catch (Exception e) {
+      // The cause can name files, SQL and constraints, it's only logged
+      log.error("Contact import {} failed", job.getId(), e);
+      job.fail(IMPORT_FAILED);
+    } finally {
+      if (contentKey != null) {
+        runningJobsByContent.remove(contentKey, job);
+      }
+      try {
+        Files.deleteIfExists(spooled);
+      } catch (IOException e) {
+        log.warn("Could not delete spooled import file {}", spooled, e);
+      }
+    }
+  }
+
+  private void record(ImportJob job, ImportMode mode, String contentHash,
+      ImportResultDTO result) {
+    try {
+      contactImportRepo.save(new ContactImport(null, job.getAppUserId(), contentHash, mode,
+          result.imported(), result.updated(), result.unchanged(), result.errored(),
+          LocalDateTime.now()));
+    } catch (RuntimeException e) {
+      // The contacts are in, only a repeated upload of the file won't be recognized
+      log.warn("Could not record the result of contact import {}", job.getId(), e);
+    }
+  }
+
+  private void purgeExpiredJobs() {
+    Instant cutoff = Instant.now().minus(jobRetention);
+
+    jobs.values().removeIf(job -> {
+      if (!job.isFinished() || !job.getFinishedAt().isBefore(cutoff)) {
+        return false;
+      }
+
+      if (job.getErrorReport() != null) {
+        try {
+          Files.deleteIfExists(job.getErrorReport());
+        } catch (IOException e) {
+          log.warn("Could not delete import error report {}", job.getErrorReport(), e);
+        }
+      }
+      return true;
+    });
+  }
+}
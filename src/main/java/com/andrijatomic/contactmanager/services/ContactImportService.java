@@ -0,0 +1,656 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
+import com.andrijatomic.contactmanager.exceptions.ImportRejectedException;
+import com.andrijatomic.contactmanager.models.Contact;
+import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactCsvParser;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator.Violation;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports contacts from CSV without holding the file in memory. Rows are parsed with
+ * {@link ContactCsvParser} on the calling thread, validated and mapped in chunks on the mapping
+ * pool, and written back on the calling thread in file order, with JDBC batch inserts, one
+ * transaction per chunk, or with COPY.
+ * Hibernate can't batch inserts for IDENTITY ids, so the entity manager is bypassed on purpose.
+ *
+ * <p>Compressed uploads are limited in the number of files, the bytes they decompress to and how
+ * many times smaller than that they are, so a small upload can't expand without bound.
+ */
+@Service
+public class ContactImportService {
+
+  private static final String INSERT_CONTACT = "INSERT INTO contacts (tsid, first_name,"
+      + " last_name, address, phone_number, app_user_id, contact_type_id)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?)"
+      + " ON CONFLICT (app_user_id, phone_number_normalized) DO NOTHING";
+
+  /**
+   * Upserts a whole chunk passed as column arrays. Rows sharing a normalized phone number within
+   * the chunk are collapsed to the last one, as a single INSERT can't update a row twice. A
+   * matched contact is only rewritten if something changed, xmax = 0 tells inserts from updates.
+   */
+  private static final String UPSERT_CONTACTS = "WITH rows AS ("
+      + " SELECT DISTINCT ON (regexp_replace(r.phone_number, '[^0-9]', '', 'g')) r.*"
+      + " FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[],"
+      + " ?::bigint[]) WITH ORDINALITY"
+      + " AS r(tsid, first_name, last_name, address, phone_number, contact_type_id, ord)"
+      + " ORDER BY regexp_replace(r.phone_number, '[^0-9]', '', 'g'), r.ord DESC"
+      + "), upserted AS ("
+      + " INSERT INTO contacts AS c (tsid, first_name, last_name, address, phone_number,"
+      + " app_user_id, contact_type_id)"
+      + " SELECT tsid, first_name, last_name, address, phone_number, ?, contact_type_id FROM rows"
+      + " ON CONFLICT (app_user_id, phone_number_normalized) DO UPDATE SET"
+      + " first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name,"
+      + " address = EXCLUDED.address, phone_number = EXCLUDED.phone_number,"
+      + " contact_type_id = EXCLUDED.contact_type_id"
+      + " WHERE (c.first_name, c.last_name, c.address, c.phone_number, c.contact_type_id)"
+      + " IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name, EXCLUDED.address,"
+      + " EXCLUDED.phone_number, EXCLUDED.contact_type_id)"
+      + " RETURNING (xmax = 0) AS inserted"
+      + ")"
+      + " SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted)"
+      + " FROM upserted";
+
+  private static final String CREATE_STAGING_TABLE = "CREATE TEMPORARY TABLE contacts_staging ("
+      + " tsid BIGINT, first_name VARCHAR, last_name VARCHAR, address VARCHAR,"
+      + " phone_number VARCHAR, contact_type_id BIGINT) ON COMMIT DROP";
+
+  private static final String COPY_INTO_STAGING = "COPY contacts_staging (tsid, first_name,"
+      + " last_name, address, phone_number, contact_type_id) FROM STDIN WITH (FORMAT csv)";
+
+  private static final String MERGE_STAGING = "INSERT INTO contacts (tsid, first_name,"
+      + " last_name, address, phone_number, app_user_id, contact_type_id)"
+      + " SELECT tsid, first_name, last_name, address, phone_number, ?, contact_type_id"
+      + " FROM contacts_staging"
+      + " ON CONFLICT (app_user_id, phone_number_normalized) DO NOTHING";
+
+  /**
+   * Below this many decompressed bytes the compression ratio isn't checked, small CSV files of
+   * repetitive rows compress far better than any sensible limit.
+   */
+  private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSource dataSource;
+  private final TransactionTemplate transactionTemplate;
+  private final ContactCsvValidator validator;
+  private final AddContactCsvDTOMapper addContactCsvDTOMapper;
+  private final ForkJoinPool contactImportMappingPool;
+  private final Executor contactImportEntryExecutor;
+  private final int chunkSize;
+  private final int maxChunksInFlight;
+  private final long maxDecompressedBytes;
+  private final int maxArchiveEntries;
+  private final int maxCompressionRatio;
+
+  public ContactImportService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+      PlatformTransactionManager transactionManager, ContactCsvValidator validator,
+      AddContactCsvDTOMapper addContactCsvDTOMapper, ForkJoinPool contactImportMappingPool,
+      @Qualifier("contactImportEntryExecutor") Executor contactImportEntryExecutor,
+      @Value("${contactmanager.import.chunk-size:1000}") int chunkSize,
+      @Value("${contactmanager.import.mapping.max-chunks-in-flight:8}") int maxChunksInFlight,
+      @Value("${contactmanager.import.max-decompressed-bytes:1073741824}")
+      long maxDecompressedBytes,
+      @Value("${contactmanager.import.max-archive-entries:100}") int maxArchiveEntries,
+      @Value("${contactmanager.import.max-compression-ratio:100}") int maxCompressionRatio) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataSource = dataSource;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.validator = validator;
+    this.addContactCsvDTOMapper = addContactCsvDTOMapper;
+    this.contactImportMappingPool = contactImportMappingPool;
+    this.contactImportEntryExecutor = contactImportEntryExecutor;
+    this.chunkSize = chunkSize;
+    this.maxChunksInFlight = maxChunksInFlight;
+    this.maxDecompressedBytes = maxDecompressedBytes;
+    this.maxArchiveEntries = maxArchiveEntries;
+    this.maxCompressionRatio = maxCompressionRatio;
+  }
+
+  /**
+   * Imports a stored upload, which may be a plain CSV file, a gzip compressed one or a zip
+   * archive of CSV files. The format is told by the first bytes of the file, compressed content
+   * is decompressed while it is parsed. The CSV files of a zip archive are imported in parallel
+   * and their counts added up, for COPY every file is loaded in its own transaction. Files of the
+   * archive that are not .csv are skipped and listed in the result and the error report.
+   *
+   * @throws ImportRejectedException if the upload exceeds the limits for compressed uploads
+   */
+  public ImportResultDTO importContacts(Path file, Long appUserId, ImportMode mode,
+      ImportProgress progress, ImportErrorReport errorReport) throws IOException {
+
+    byte[] magic;
+    try (InputStream in = Files.newInputStream(file)) {
+      magic = in.readNBytes(2);
+    }
+
+    if (magic.length == 2 && magic[0] == 'P' && magic[1] == 'K') {
+      return importZip(file, appUserId, mode, progress, errorReport);
+    }
+
+    InputStream in = Files.newInputStream(file);
+    try {
+      if (magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+        in = new DecompressionBudget(Files.size(file))
+            .limit(new GZIPInputStream(in, 64 * 1024));
+      }
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+
+    try (Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      return importContacts(reader, appUserId, mode, progress, errorReport);
+    }
+  }
+
+  public ImportResultDTO importContacts(Reader reader, Long appUserId) throws IOException {
+    return importContacts(reader, appUserId, new ImportProgress());
+  }
+
+  public ImportResultDTO importContacts(Reader reader, Long appUserId, ImportMode mode,
+      ImportProgress progress) throws IOException {
+    return importContacts(reader, appUserId, mode, progress, ImportErrorReport.NONE);
+  }
+
+  /**
+   * Same as {@link #importContacts(Reader, Long, ImportMode, ImportProgress)}, but every rejected
+   * row is written to {@code errorReport} as soon as it is rejected.
+   */
+  public ImportResultDTO importContacts(Reader reader, Long appUserId, ImportMode mode,
+      ImportProgress progress, ImportErrorReport errorReport) throws IOException {
+    ImportResultDTO result = switch (mode) {
+      case BATCH -> importContacts(reader, appUserId, progress, errorReport, false);
+      case COPY -> importContactsWithCopy(reader, appUserId, progress, errorReport);
+      case UPSERT -> importContacts(reader, appUserId, progress, errorReport, true);
+    };
+    errorReport.flush();
+    return result;
+  }
+
+  public ImportResultDTO importContacts(Reader reader, Long appUserId, ImportProgress progress)
+      throws IOException {
+    return importContacts(reader, appUserId, progress, ImportErrorReport.NONE, false);
+  }
+
+  /**
+   * Must not be called inside a transaction, or the chunks won't commit on their own. Rows whose
+   * phone number the user already has are skipped, or update that contact if {@code upsert} is
+   * set.
+   */
+  private ImportResultDTO importContacts(Reader reader, Long appUserId, ImportProgress progress,
+      ImportErrorReport errorReport, boolean upsert) throws IOException {
+
+    ContactCsvParser parser = new ContactCsvParser(reader);
+    BatchInserter inserter = new BatchInserter(appUserId, progress, upsert);
+
+    int errored = mapRows(parser, progress, errorReport, inserter);
+    inserter.flush();
+
+    return new ImportResultDTO(inserter.imported, inserter.updated, inserter.unchanged, errored);
+  }
+
+  /**
+   * Bulk load for very large files. Valid rows are streamed with COPY FROM STDIN into a
+   * temporary staging table and moved into contacts with one INSERT ... SELECT. Everything runs
+   * in a single transaction, so the import is all or nothing.
+   */
+  public ImportResultDTO importContactsWithCopy(Reader reader, Long appUserId,
+      ImportProgress progress) throws IOException {
+    return importContactsWithCopy(reader, appUserId, progress, ImportErrorReport.NONE);
+  }
+
+  private ImportResultDTO importContactsWithCopy(Reader reader, Long appUserId,
+      ImportProgress progress, ImportErrorReport errorReport) throws IOException {
+
+    ContactCsvParser parser = new ContactCsvParser(reader);
+
+    try {
+      return copyInTransaction(parser, appUserId, progress, errorReport);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private ImportResultDTO copyInTransaction(ContactCsvParser parser, Long appUserId,
+      ImportProgress progress, ImportErrorReport errorReport) {
+
+    return transactionTemplate.execute(status -> {
+      jdbcTemplate.execute(CREATE_STAGING_TABLE);
+
+      Connection connection = DataSourceUtils.getConnection(dataSource);
+      int[] written = {0};
+      int errored;
+
+      try (Writer copy = new BufferedWriter(new OutputStreamWriter(new PGCopyOutputStream(
+          connection.unwrap(PGConnection.class), COPY_INTO_STAGING), StandardCharsets.UTF_8))) {
+
+        errored = mapRows(parser, progress, errorReport, contact -> {
+          writeCopyRow(copy, contact);
+          written[0]++;
+        });
+      } catch (SQLException e) {
+        throw new UncategorizedSQLException("COPY", COPY_INTO_STAGING, e);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+      }
+
+      // Rows skipped because the user already has their phone number
+      int imported = jdbcTemplate.update(MERGE_STAGING, appUserId);
+      progress.inserted(imported);
+      progress.unchanged(written[0] - imported);
+
+      return new ImportResultDTO(imported, 0, written[0] - imported, errored);
+    });
+  }
+
+  private ImportResultDTO importZip(Path file, Long appUserId, ImportMode mode,
+      ImportProgress progress, ImportErrorReport errorReport) throws IOException {
+
+    try (ZipFile zip = new ZipFile(file.toFile(), StandardCharsets.UTF_8)) {
+
+      List<? extends ZipEntry> files = zip.stream()
+          .filter(entry -> !entry.isDirectory())
+          .toList();
+      if (files.size() > maxArchiveEntries) {
+        throw new ImportRejectedException("Archive has more than " + maxArchiveEntries
+            + " files");
+      }
+
+      List<String> skippedFiles = new ArrayList<>();
+      List<ZipEntry> csvFiles = new ArrayList<>();
+      for (ZipEntry entry : files) {
+        if (entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+          csvFiles.add(entry);
+        } else {
+          skippedFiles.add(entry.getName());
+          errorReport.skipFile(entry.getName(), "Not a .csv file, skipped");
+        }
+      }
+
+      DecompressionBudget budget = new DecompressionBudget(Files.size(file));
+      List<CompletableFuture<ImportResultDTO>> entries = csvFiles.stream()
+          .map(entry -> CompletableFuture.supplyAsync(
+              () -> importEntry(zip, entry, budget, appUserId, mode, progress, errorReport),
+              contactImportEntryExecutor))
+          .toList();
+
+      // Every entry has to be done before the archive is closed, even if one of them failed
+      ImportResultDTO result = new ImportResultDTO(0, 0).withSkippedFiles(skippedFiles);
+      RuntimeException failure = null;
+
+      for (CompletableFuture<ImportResultDTO> entry : entries) {
+        try {
+          result = result.plus(entry.join());
+        } catch (CompletionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+          }
+        }
+      }
+
+      if (failure instanceof UncheckedIOException e) {
+        throw e.getCause();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return result;
+    }
+  }
+
+  private ImportResultDTO importEntry(ZipFile zip, ZipEntry entry, DecompressionBudget budget,
+      Long appUserId, ImportMode mode, ImportProgress progress, ImportErrorReport errorReport) {
+
+    try (Reader reader = new BufferedReader(new InputStreamReader(
+        budget.limit(zip.getInputStream(entry)), StandardCharsets.UTF_8))) {
+      return importContacts(reader, appUserId, mode, progress,
+          errorReport.forFile(entry.getName()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Counts the bytes decompressed from one upload, across all files of a zip archive, and rejects
+   * the upload as soon as they exceed the limits. Files of an archive are read in parallel, so
+   * the count is shared.
+   */
+  private class DecompressionBudget {
+
+    private final long compressedBytes;
+    private final AtomicLong decompressedBytes = new AtomicLong();
+
+    DecompressionBudget(long compressedBytes) {
+      this.compressedBytes = compressedBytes;
+    }
+
+    InputStream limit(InputStream in) {
+      return new FilterInputStream(in) {
+
+        @Override
+        public int read() throws IOException {
+          int b = super.read();
+          if (b != -1) {
+            add(1);
+          }
+          return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          int read = super.read(b, off, len);
+          if (read > 0) {
+            add(read);
+          }
+          return read;
+        }
+      };
+    }
+
+    private void add(long bytes) {
+      long total = decompressedBytes.addAndGet(bytes);
+
+      if (total > maxDecompressedBytes) {
+        throw new ImportRejectedException("Upload decompresses to more than "
+            + maxDecompressedBytes + " bytes");
+      }
+      if (total > RATIO_CHECK_THRESHOLD && total > compressedBytes * maxCompressionRatio) {
+        throw new ImportRejectedException("Upload is compressed more than "
+            + maxCompressionRatio + " times");
+      }
+    }
+  }
+
+  /**
+   * Parses rows on the calling thread and hands them to the mapping pool in chunks. At most
+   * {@code maxChunksInFlight} chunks are queued ahead of the one being written, once the queue is
+   * full the parser waits for the oldest chunk, so a slow database holds the parser back instead
+   * of letting parsed rows pile up in memory. Chunks are handed to {@code sink} and rejected rows
+   * to {@code errorReport} in file order.
+   *
+   * @return the number of rejected rows
+   */
+  private int mapRows(ContactCsvParser parser, ImportProgress progress,
+      ImportErrorReport errorReport, ContactSink sink) throws IOException {
+
+    ArrayDeque<CompletableFuture<List<MappedRow>>> inFlight =
+        new ArrayDeque<>(maxChunksInFlight);
+    int errored = 0;
+
+    try {
+      List<AddContactCsvDTO> rows = new ArrayList<>(chunkSize);
+      long[] lineNumbers = new long[chunkSize];
+      AddContactCsvDTO row;
+
+      while ((row = parser.next()) != null) {
+        progress.rowsRead(1);
+        lineNumbers[rows.size()] = parser.getLineNumber();
+        rows.add(row);
+
+        if (rows.size() == chunkSize) {
+          if (inFlight.size() == maxChunksInFlight) {
+            errored += write(inFlight.poll(), progress, errorReport, sink);
+          }
+          inFlight.add(mapAsync(rows, lineNumbers));
+          rows = new ArrayList<>(chunkSize);
+          lineNumbers = new long[chunkSize];
+        }
+      }
+
+      if (!rows.isEmpty()) {
+        inFlight.add(mapAsync(rows, lineNumbers));
+      }
+
+      while (!inFlight.isEmpty()) {
+        errored += write(inFlight.poll(), progress, errorReport, sink);
+      }
+    } finally {
+      inFlight.forEach(chunk -> chunk.cancel(false));
+    }
+
+    return errored;
+  }
+
+  private CompletableFuture<List<MappedRow>> mapAsync(List<AddContactCsvDTO> rows,
+      long[] lineNumbers) {
+    return CompletableFuture.supplyAsync(() -> {
+      List<MappedRow> mapped = new ArrayList<>(rows.size());
+      for (int i = 0; i < rows.size(); i++) {
+        mapped.add(mapRow(rows.get(i), lineNumbers[i]));
+      }
+      return mapped;
+    }, contactImportMappingPool);
+  }
+
+  /**
+   * @return the number of rejected rows in the chunk
+   */
+  private static int write(CompletableFuture<List<MappedRow>> chunk, ImportProgress progress,
+      ImportErrorReport errorReport, ContactSink sink) throws IOException {
+
+    List<MappedRow> rows;
+    try {
+      rows = chunk.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+
+    int errored = 0;
+    for (MappedRow row : rows) {
+      if (row.contact() == null) {
+        errored++;
+        progress.rejected(1);
+        errorReport.reject(row.lineNumber(), row.violations());
+        continue;
+      }
+      sink.accept(row.contact());
+    }
+    return errored;
+  }
+
+  /**
+   * Either the mapped contact or the reasons the row was rejected.
+   */
+  private record MappedRow(long lineNumber, Contact contact, List<Violation> violations) {
+
+  }
+
+  @FunctionalInterface
+  private interface ContactSink {
+
+    void accept(Contact contact) throws IOException;
+  }
+
+  private static void writeCopyRow(Writer copy, Contact contact) throws IOException {
+    copy.write(contact.getTsid().toString());
+    for (String value : new String[]{contact.getFirstName(), contact.getLastName(),
+        contact.getAddress(), contact.getPhoneNumber()}) {
+      copy.write(",\"");
+      copy.write(value.replace("\"", "\"\""));
+      copy.write('"');
+    }
+    copy.write(',');
+    copy.write(contact.getContactType().getId().toString());
+    copy.write('\n');
+  }
+
+  private MappedRow mapRow(AddContactCsvDTO row, long lineNumber) {
+    List<Violation> violations = validator.validate(row);
+    if (!violations.isEmpty()) {
+      return new MappedRow(lineNumber, null, violations);
+    }
+
+    try {
+      return new MappedRow(lineNumber, addContactCsvDTOMapper.apply(row), List.of());
+    } catch (ContactTypeNotFoundException e) {
+      return new MappedRow(lineNumber, null,
+          List.of(new Violation("contactType", e.getMessage())));
+    }
+  }
+
+  /**
+   * Collects valid contacts into chunks of {@code chunkSize} and writes every chunk in its own
+   * transaction.
+   */
+  private class BatchInserter implements ContactSink {
+
+    private final Long appUserId;
+    private final ImportProgress progress;
+    private final boolean upsert;
+    private List<Contact> chunk = new ArrayList<>(chunkSize);
+    private int imported;
+    private int updated;
+    private int unchanged;
+
+    BatchInserter(Long appUserId, ImportProgress progress, boolean upsert) {
+      this.appUserId = appUserId;
+      this.progress = progress;
+      this.upsert = upsert;
+    }
+
+    @Override
+    public void accept(Contact contact) {
+      chunk.add(contact);
+
+      if (chunk.size() == chunkSize) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (chunk.isEmpty()) {
+        return;
+      }
+
+      List<Contact> batch = chunk;
+      int[] counts = transactionTemplate.execute(status -> upsert ? upsert(batch) : insert(batch));
+
+      progress.inserted(counts[0]);
+      progress.updated(counts[1]);
+      progress.unchanged(batch.size() - counts[0] - counts[1]);
+      imported += counts[0];
+      updated += counts[1];
+      unchanged += batch.size() - counts[0] - counts[1];
+      chunk = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * @return the number of inserted rows, and zero updated rows
+     */
+    private int[] insert(List<Contact> batch) {
+      List<Object[]> rows = new ArrayList<>(batch.size());
+      for (Contact contact : batch) {
+        rows.add(new Object[]{
+            contact.getTsid(),
+            contact.getFirstName(),
+            contact.getLastName(),
+            contact.getAddress(),
+            contact.getPhoneNumber(),
+            appUserId,
+            contact.getContactType().getId()
+        });
+      }
+
+      int inserted = 0;
+      for (int count : jdbcTemplate.batchUpdate(INSERT_CONTACT, rows)) {
+        // Skipped duplicates count 0, without the counts they would be reported as inserted
+        if (count == Statement.SUCCESS_NO_INFO) {
+          throw new IllegalStateException("The JDBC driver didn't report how many contacts were"
+              + " inserted, batch imports need reWriteBatchedInserts to be off");
+        }
+        inserted += count;
+      }
+      return new int[]{inserted, 0};
+    }
+
+    /**
+     * @return the number of inserted and updated rows
+     */
+    private int[] upsert(List<Contact> batch) {
+      Object[] tsids = new Object[batch.size()];
+      Object[] firstNames = new Object[batch.size()];
+      Object[] lastNames = new Object[batch.size()];
+      Object[] addresses = new Object[batch.size()];
+      Object[] phoneNumbers = new Object[batch.size()];
+      Object[] contactTypeIds = new Object[batch.size()];
+
+      for (int i = 0; i < batch.size(); i++) {
+        Contact contact = batch.get(i);
+        tsids[i] = contact.getTsid();
+        firstNames[i] = contact.getFirstName();
+        lastNames[i] = contact.getLastName();
+        addresses[i] = contact.getAddress();
+        phoneNumbers[i] = contact.getPhoneNumber();
+        contactTypeIds[i] = contact.getContactType().getId();
+      }
+
+      return jdbcTemplate.query(connection -> {
+        PreparedStatement statement = connection.prepareStatement(UPSERT_CONTACTS);
+        statement.setArray(1, connection.createArrayOf("bigint", tsids));
+        statement.setArray(2, connection.createArrayOf("varchar", firstNames));
+        statement.setArray(3, connection.createArrayOf("varchar", lastNames));
+        statement.setArray(4, connection.createArrayOf("varchar", addresses));
+        statement.setArray(5, connection.createArrayOf("varchar", phoneNumbers));
+        statement.setArray(6, connection.createArrayOf("bigint", contactTypeIds));
+        statement.setLong(7, appUserId);
+        return statement;
+      }, resultSet -> {
+        resultSet.next();
+        return new int[]{resultSet.getInt(1), resultSet.getInt(2)};
+      });
+    }
+  }
+}
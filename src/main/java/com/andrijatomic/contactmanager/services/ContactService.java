@@ -1,54 +1,54 @@
 package com.andrijatomic.contactmanager.services;
 
-import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
 import com.andrijatomic.contactmanager.dtos.AddContactRequestDTO;
 import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import com.andrijatomic.contactmanager.dtos.CursorPageResponseDTO;
+import com.andrijatomic.contactmanager.dtos.PageResponseDTO;
 import com.andrijatomic.contactmanager.dtos.SearchRequestDTO;
 import com.andrijatomic.contactmanager.dtos.UpdateContactRequestDTO;
-import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.exceptions.ContactNotFoundException;
 import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
-import com.andrijatomic.contactmanager.models.AppUser;
 import com.andrijatomic.contactmanager.models.Contact;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
 import com.andrijatomic.contactmanager.repos.ContactRepo;
-import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
-import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.services.ContactExportService.Snapshot;
 import com.andrijatomic.contactmanager.utils.AddContactRequestDTOMapper;
 import com.andrijatomic.contactmanager.utils.CheckCredentials;
+import com.andrijatomic.contactmanager.utils.ContactCursor;
 import com.andrijatomic.contactmanager.utils.ContactResponseDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactSortUtil;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
 import com.andrijatomic.contactmanager.utils.CountUtil;
-import com.andrijatomic.contactmanager.utils.FieldExtractor;
+import com.andrijatomic.contactmanager.utils.ExportJob;
+import com.andrijatomic.contactmanager.utils.ExportJobStatusDTOMapper;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportJob;
+import com.andrijatomic.contactmanager.utils.ImportJobStatusDTOMapper;
+import com.andrijatomic.contactmanager.utils.ImportMode;
 import com.andrijatomic.contactmanager.utils.UpdateContactRequestDTOMapper;
 import com.github.f4b6a3.tsid.TsidCreator;
-import com.opencsv.CSVWriter;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
-import com.opencsv.bean.StatefulBeanToCsv;
-import com.opencsv.bean.StatefulBeanToCsvBuilder;
-import com.opencsv.exceptions.CsvDataTypeMismatchException;
-import com.opencsv.exceptions.CsvRequiredFieldEmptyException;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.Set;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
@@ -57,91 +57,140 @@ import org.springframework.web.multipart.MultipartFile;
 @Transactional
 public class ContactService {
 
+  private static final Set<String> CSV_UPLOAD_EXTENSIONS = Set.of("csv", "gz", "zip");
+
   private final ContactRepo contactRepo;
   private final ContactResponseDTOMapper contactResponseDTOMapper;
   private final AppUserRepo appUserRepo;
-  private final ContactTypeRepo contactTypeRepo;
+  private final ContactTypeRegistry contactTypeRegistry;
   private final AddContactRequestDTOMapper addContactRequestDTOMapper;
   private final UpdateContactRequestDTOMapper updateContactRequestDTOMapper;
-  private final AddContactCsvDTOMapper addContactCsvDTOMapper;
+  private final ContactImportJobService contactImportJobService;
+  private final ImportJobStatusDTOMapper importJobStatusDTOMapper;
+  private final ContactExportService contactExportService;
+  private final ContactExportJobService contactExportJobService;
+  private final ExportJobStatusDTOMapper exportJobStatusDTOMapper;
 
   public ContactService(ContactRepo contactRepo, ContactResponseDTOMapper contactResponseDTOMapper,
-      AppUserRepo appUserRepo, ContactTypeRepo contactTypeRepo,
+      AppUserRepo appUserRepo, ContactTypeRegistry contactTypeRegistry,
       AddContactRequestDTOMapper addContactRequestDTOMapper,
       UpdateContactRequestDTOMapper updateContactRequestDTOMapper,
-      AddContactCsvDTOMapper addContactCsvDTOMapper) {
+      ContactImportJobService contactImportJobService,
+      ImportJobStatusDTOMapper importJobStatusDTOMapper,
+      ContactExportService contactExportService,
+      ContactExportJobService contactExportJobService,
+      ExportJobStatusDTOMapper exportJobStatusDTOMapper) {
     this.contactRepo = contactRepo;
     this.contactResponseDTOMapper = contactResponseDTOMapper;
     this.appUserRepo = appUserRepo;
-    this.contactTypeRepo = contactTypeRepo;
+    this.contactTypeRegistry = contactTypeRegistry;
     this.addContactRequestDTOMapper = addContactRequestDTOMapper;
     this.updateContactRequestDTOMapper = updateContactRequestDTOMapper;
-    this.addContactCsvDTOMapper = addContactCsvDTOMapper;
+    this.contactImportJobService = contactImportJobService;
+    this.importJobStatusDTOMapper = importJobStatusDTOMapper;
+    this.contactExportService = contactExportService;
+    this.contactExportJobService = contactExportJobService;
+    this.exportJobStatusDTOMapper = exportJobStatusDTOMapper;
   }
 
-  public ResponseEntity<?> getContact(Long tsid, AppUser loggedInUser) {
+  @Transactional(readOnly = true)
+  public ResponseEntity<?> getContact(Long tsid, AppUserPrincipal loggedInUser) {
 
-    Contact retrievedContact = contactRepo.getContactByTsid(tsid)
+    ContactResponseDTO retrievedContact = contactRepo
+        .getContactResponseByTsid(tsid, loggedInUser.getId())
         .orElseThrow(() -> new ContactNotFoundException(tsid));
 
-    if (CheckCredentials.checkIfAppUserOwnsContact(loggedInUser, retrievedContact)) {
-      return new ResponseEntity<>(contactResponseDTOMapper.apply(retrievedContact), HttpStatus.OK);
-    }
-    return new ResponseEntity<>("Contact not found", HttpStatus.NOT_FOUND);
+    return new ResponseEntity<>(retrievedContact, HttpStatus.OK);
   }
 
 
+  @Transactional(readOnly = true)
   public List<ContactResponseDTO> getAllContacts(int page, int size, String sortByProperty,
-      AppUser loggedInUser) {
+      AppUserPrincipal loggedInUser) {
+
+    return contactRepo.getContactResponsesByAppUserId(loggedInUser.getId(),
+        PageRequest.of(page, size, ContactSortUtil.sortBy(sortByProperty)));
+  }
+
+  /**
+   * Keyset variant of {@link #getAllContacts}. Instead of skipping page * size rows it continues
+   * right after the contact encoded in the {@code after} cursor, so deep pages cost the same as
+   * the first one and concurrent inserts don't shift contacts between pages.
+   */
+  @Transactional(readOnly = true)
+  public CursorPageResponseDTO<ContactResponseDTO> getAllContactsAfter(String after, int size,
+      String sortByProperty, AppUserPrincipal loggedInUser) {
+
+    if (size < 1) {
+      throw new IllegalArgumentException("Page size must be at least 1");
+    }
+
+    String property = ContactSortUtil.sortProperty(sortByProperty);
+    // One extra row tells whether there is a next page
+    Pageable limit = PageRequest.of(0, size + 1);
+
+    List<ContactResponseDTO> contacts;
+    if (after == null || after.isBlank()) {
+      contacts = contactRepo.getContactResponsesByAppUserId(loggedInUser.getId(),
+          PageRequest.of(0, size + 1, ContactSortUtil.sortBy(property)));
+    } else {
+      ContactCursor cursor = ContactCursor.decode(after);
+      if (!cursor.sortProperty().equals(property)) {
+        throw new IllegalArgumentException("Cursor was issued for a different sort property");
+      }
+
+      Long userId = loggedInUser.getId();
+      contacts = switch (property) {
+        case "lastName" -> contactRepo.getContactsAfterLastName(userId, cursor.sortValue(),
+            cursor.tsid(), limit);
+        case "address" -> contactRepo.getContactsAfterAddress(userId, cursor.sortValue(),
+            cursor.tsid(), limit);
+        case "phoneNumber" -> contactRepo.getContactsAfterPhoneNumber(userId, cursor.sortValue(),
+            cursor.tsid(), limit);
+        default -> contactRepo.getContactsAfterFirstName(userId, cursor.sortValue(),
+            cursor.tsid(), limit);
+      };
+    }
+
+    String nextCursor = null;
+    if (contacts.size() > size) {
+      contacts = contacts.subList(0, size);
+      nextCursor = ContactCursor.of(contacts.get(size - 1), property).encode();
+    }
 
-    return contactRepo
-        .getContactsByAppUser(loggedInUser, PageRequest.of(page, size, Sort.by(sortByProperty)))
-        .stream()
-        .map(contactResponseDTOMapper)
-        .collect(Collectors.toList());
+    return new CursorPageResponseDTO<>(contacts, nextCursor);
   }
 
-  public List<ContactResponseDTO> searchContacts(SearchRequestDTO searchRequest,
-      AppUser loggedInUser) {
-
-    List<Contact> retrievedContacts = switch (searchRequest.searchParameter()) {
-      case "firstName" -> contactRepo.getContactByAppUserAndFirstNameContainingIgnoreCase(
-          loggedInUser, searchRequest.searchKeyword());
-      case "lastName" -> contactRepo.getContactByAppUserAndLastNameContainingIgnoreCase(
-          loggedInUser, searchRequest.searchKeyword());
-      case "address" -> contactRepo.getContactByAppUserAndAddressContainingIgnoreCase(
-          loggedInUser, searchRequest.searchKeyword());
-      case "phoneNumber" -> contactRepo.getContactByAppUserAndPhoneNumberContainingIgnoreCase(
-          loggedInUser, searchRequest.searchKeyword());
-      default -> new ArrayList<>();
+  @Transactional(readOnly = true)
+  public PageResponseDTO<ContactResponseDTO> searchContacts(SearchRequestDTO searchRequest,
+      AppUserPrincipal loggedInUser) {
+
+    Pageable pageable = PageRequest.of(searchRequest.page(), searchRequest.size(),
+        ContactSortUtil.sortBy(searchRequest.sortBy()));
+
+    String pattern = containsPattern(searchRequest.searchKeyword());
+
+    Page<ContactResponseDTO> retrievedContacts = switch (searchRequest.searchParameter()) {
+      case "firstName" -> contactRepo.searchByFirstName(loggedInUser.getId(), pattern, pageable);
+      case "lastName" -> contactRepo.searchByLastName(loggedInUser.getId(), pattern, pageable);
+      case "address" -> contactRepo.searchByAddress(loggedInUser.getId(), pattern, pageable);
+      case "phoneNumber" -> contactRepo.searchByPhoneNumber(loggedInUser.getId(), pattern,
+          pageable);
+      default -> Page.empty(pageable);
     };
 
-    @SuppressWarnings("unchecked, rawtypes")
-    Comparator<Contact> comparator = Comparator.<Contact, Comparable>comparing(
-        FieldExtractor.getFieldExtractor(searchRequest.sortBy())
-    );
-
-    return retrievedContacts
-        .stream()
-        .sorted(comparator)
-        .skip((long) searchRequest.size() * searchRequest.page())
-        .limit(searchRequest.size())
-        .map(contactResponseDTOMapper)
-        .collect(Collectors.toList());
+    return PageResponseDTO.of(retrievedContacts);
   }
 
   public ContactResponseDTO addContact(AddContactRequestDTO addContactRequestDTO,
-      AppUser loggedInUser) {
+      AppUserPrincipal loggedInUser) {
 
     Contact contactToBeAdded = addContactRequestDTOMapper.apply(addContactRequestDTO);
     contactToBeAdded.setTsid(TsidCreator.getTsid().toLong());
 
-    contactToBeAdded.setAppUser(appUserRepo.getAppUserByTsid(
-        loggedInUser.getTsid()).orElseThrow(
-            () -> new AppUserNotFoundException("TSID", loggedInUser.getTsid().toString())
-    ));
+    contactToBeAdded.setAppUser(appUserRepo.getReferenceById(loggedInUser.getId()));
 
-    contactToBeAdded.setContactType(contactTypeRepo.getContactTypeByTsid(
+    contactToBeAdded.setContactType(contactTypeRegistry.getByTsid(
         Long.parseLong(addContactRequestDTO.contactTypeTsid())).orElseThrow(
         () -> new ContactTypeNotFoundException(addContactRequestDTO.contactTypeTsid())
     ));
@@ -151,7 +200,8 @@ public class ContactService {
     return contactResponseDTOMapper.apply(contactToBeAdded);
   }
 
-  public ResponseEntity<?> updateContact(UpdateContactRequestDTO contactRequestDTO, AppUser loggedInUser) {
+  public ResponseEntity<?> updateContact(UpdateContactRequestDTO contactRequestDTO,
+      AppUserPrincipal loggedInUser) {
 
     Contact contactToBeUpdated = updateContactRequestDTOMapper.apply(contactRequestDTO);
 
@@ -164,7 +214,7 @@ public class ContactService {
     return new ResponseEntity<>("Contact not found", HttpStatus.NOT_FOUND);
   }
 
-  public ResponseEntity<?> deleteContact(Long tsid, AppUser loggedInUser) {
+  public ResponseEntity<?> deleteContact(Long tsid, AppUserPrincipal loggedInUser) {
 
     Contact contactToBeDeleted = contactRepo.getContactByTsid(tsid)
         .orElseThrow(() -> new ContactNotFoundException(tsid));
@@ -177,81 +227,262 @@ public class ContactService {
 
     return ResponseEntity.notFound().build();
   }
-  public void exportContactsToCsv(AppUser loggedInUser, HttpServletResponse response)
-      throws IOException, CsvRequiredFieldEmptyException, CsvDataTypeMismatchException {
 
-    String fileName = "contacts.csv";
+  /**
+   * Serves the export snapshot of the user's current contacts version. The snapshot is gzip
+   * compressed if the client accepts it. Its ETag changes with the version, so the client can
+   * revalidate with If-None-Match and resume with Range and If-Range.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> exportContactsToCsv(AppUserPrincipal loggedInUser,
+      HttpHeaders requestHeaders) throws IOException {
+
+    boolean gzip = acceptsGzip(requestHeaders);
+
+    long version = contactExportService.getContactsVersion(loggedInUser.getId());
+    if (requestHeaders.getIfNoneMatch().contains(exportETag(loggedInUser, version, gzip))) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(exportETag(loggedInUser, version, gzip))
+          .build();
+    }
 
-    List<Contact> contacts = contactRepo
-        .getContactsByAppUser(loggedInUser, Sort.by(Direction.ASC, "firstName"));
+    return serveExport(contactExportService.snapshot(loggedInUser.getId(), gzip), loggedInUser,
+        requestHeaders);
+  }
 
-    List<ContactResponseDTO> contactResponse = contacts.stream().map(contactResponseDTOMapper)
-        .toList();
+  /**
+   * Returns 202 Accepted with an export job whose file can be downloaded once it has finished.
+   * The job uses gzip if the client accepts it.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> exportContactsToCsvAsync(AppUserPrincipal loggedInUser,
+      HttpHeaders requestHeaders) {
+
+    ExportJob job = contactExportJobService.submit(loggedInUser.getId(),
+        acceptsGzip(requestHeaders));
+    return new ResponseEntity<>(exportJobStatusDTOMapper.apply(job), HttpStatus.ACCEPTED);
+  }
 
-    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-        "attachment; filename=\"" + fileName + "\"");
-    response.setContentType("text/csv");
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> getExportJob(String jobId, AppUserPrincipal loggedInUser) {
 
-    StatefulBeanToCsv<ContactResponseDTO> csvWriter =
-        new StatefulBeanToCsvBuilder<ContactResponseDTO>(response.getWriter())
-        .withQuotechar(CSVWriter.NO_QUOTE_CHARACTER)
-        .withSeparator(CSVWriter.DEFAULT_SEPARATOR)
-        .withOrderedResults(true)
-        .build();
+    return contactExportJobService.getJob(jobId, loggedInUser.getId())
+        .<ResponseEntity<?>>map(job ->
+            new ResponseEntity<>(exportJobStatusDTOMapper.apply(job), HttpStatus.OK))
+        .orElseGet(() -> new ResponseEntity<>("Export job not found", HttpStatus.NOT_FOUND));
+  }
 
-    csvWriter.write(contactResponse);
+  /**
+   * Serves the file of a finished export job with the same headers as the synchronous export.
+   * The file is replaced once the contacts change, a job that old has to be submitted again.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> downloadExportJob(String jobId, AppUserPrincipal loggedInUser,
+      HttpHeaders requestHeaders) throws IOException {
+
+    Optional<ExportJob> job = contactExportJobService.getJob(jobId, loggedInUser.getId());
+
+    if (job.isEmpty()) {
+      return new ResponseEntity<>("Export job not found", HttpStatus.NOT_FOUND);
+    }
+    if (!job.get().isFinished()) {
+      return new ResponseEntity<>("Export job is still running", HttpStatus.CONFLICT);
+    }
+    if (job.get().getStatus() == ExportJob.Status.FAILED) {
+      return new ResponseEntity<>(job.get().getError(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    Snapshot snapshot = job.get().getSnapshot();
+    if (snapshot.gzip() && !acceptsGzip(requestHeaders)) {
+      return new ResponseEntity<>("Export job was written gzip compressed",
+          HttpStatus.NOT_ACCEPTABLE);
+    }
+    if (!Files.exists(snapshot.file())) {
+      return new ResponseEntity<>("Contacts changed since the export, submit a new export job",
+          HttpStatus.GONE);
+    }
+    if (requestHeaders.getIfNoneMatch()
+        .contains(exportETag(loggedInUser, snapshot.version(), snapshot.gzip()))) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(exportETag(loggedInUser, snapshot.version(), snapshot.gzip()))
+          .build();
+    }
+
+    return serveExport(snapshot, loggedInUser, requestHeaders);
   }
 
-  public ResponseEntity<?> importContactsFromCsvFile(@RequestPart MultipartFile file,
-      AppUser loggedInUser) {
+  private static ResponseEntity<?> serveExport(Snapshot snapshot, AppUserPrincipal loggedInUser,
+      HttpHeaders requestHeaders) throws IOException {
+
+    String eTag = exportETag(loggedInUser, snapshot.version(), snapshot.gzip());
+    Resource resource = new FileSystemResource(snapshot.file());
+    long length = resource.contentLength();
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(eTag);
+    headers.setContentType(MediaType.parseMediaType("text/csv"));
+    headers.setContentDisposition(ContentDisposition.attachment().filename("contacts.csv").build());
+    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+    headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+    if (snapshot.gzip()) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
 
-    String fileName = file.getOriginalFilename();
+    List<HttpRange> ranges = requestHeaders.getRange();
+    String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
 
-    Optional<String> fileExtension = Optional.ofNullable(fileName)
-        .filter(f -> f.contains("."))
-        .map(f -> f.substring(fileName.lastIndexOf(".") + 1));
-    if(fileExtension.isPresent() && !fileExtension.get().equals("csv")) {
-      return new ResponseEntity<>("File type is not .csv", HttpStatus.BAD_REQUEST);
+    // A range of an older snapshot can't be resumed from this one, so it gets the whole file
+    if (ranges.isEmpty() || (ifRange != null && !ifRange.equals(eTag))) {
+      return new ResponseEntity<>(new ResourceRegion(resource, 0, length), headers,
+          HttpStatus.OK);
     }
 
-    if(file.isEmpty()) {
-      return new ResponseEntity<>("File is empty", HttpStatus.BAD_REQUEST);
+    try {
+      return new ResponseEntity<>(HttpRange.toResourceRegions(ranges, resource), headers,
+          HttpStatus.PARTIAL_CONTENT);
+    } catch (IllegalArgumentException e) {
+      headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+      return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+  }
+
+  /**
+   * Repeating an upload that was already imported returns the stored result, and repeating one
+   * that is still being imported returns its job with 202 Accepted.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> importContactsFromCsvFile(@RequestPart MultipartFile file,
+      ImportMode mode, AppUserPrincipal loggedInUser) throws IOException {
+
+    ResponseEntity<?> rejection = checkCsvUpload(file);
+    if (rejection != null) {
+      return rejection;
     }
 
-    try(Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
+    ImportJob job = contactImportJobService.importNow(file, loggedInUser.getId(), mode);
 
-      CsvToBean<AddContactCsvDTO> csvToBean = new CsvToBeanBuilder<AddContactCsvDTO>(reader)
-          .withType(AddContactCsvDTO.class)
-          .withIgnoreLeadingWhiteSpace(true)
-          .build();
+    return switch (job.getStatus()) {
+      case COMPLETED -> new ResponseEntity<>(job.getResult().message(), HttpStatus.OK);
+      case REJECTED -> new ResponseEntity<>(job.getError(), HttpStatus.BAD_REQUEST);
+      case FAILED -> new ResponseEntity<>(job.getError(), HttpStatus.INTERNAL_SERVER_ERROR);
+      default -> new ResponseEntity<>(importJobStatusDTOMapper.apply(job), HttpStatus.ACCEPTED);
+    };
+  }
+
+  /**
+   * Streams the rejected rows back as a CSV report while the import runs, instead of only
+   * counting them. The upload is checked before the response is taken over, once the report is
+   * streaming the outcome of the import is its last row.
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> importContactsFromCsvFileWithErrorReport(MultipartFile file,
+      ImportMode mode, AppUserPrincipal loggedInUser, HttpServletResponse response)
+      throws IOException {
+
+    ResponseEntity<?> rejection = checkCsvUpload(file);
+    if (rejection != null) {
+      return rejection;
+    }
+
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"import-errors.csv\"");
+    response.setContentType("text/csv");
 
-      List<AddContactCsvDTO> contactsFromCsv = csvToBean.parse();
+    contactImportJobService.importWithErrorReport(file, loggedInUser.getId(), mode,
+        ImportErrorReport.writingTo(response.getWriter()));
 
-      ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
-      Validator validator = validatorFactory.getValidator();
+    // The report is already written to the response, there is no body left to add
+    return ResponseEntity.ok().build();
+  }
 
-      AtomicInteger counter = new AtomicInteger(0);
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> importContactsFromCsvFileAsync(MultipartFile file, ImportMode mode,
+      boolean errorReport, AppUserPrincipal loggedInUser) throws IOException {
 
-      contactsFromCsv.stream()
-          .filter(addContactCsvDTO -> validator.validate(addContactCsvDTO).isEmpty())
-          .map(addContactCsvDTOMapper)
-          .forEach(contact -> {
-            counter.getAndIncrement();
-            contact.setAppUser(loggedInUser);
-            contactRepo.save(contact);
-          });
+    ResponseEntity<?> rejection = checkCsvUpload(file);
+    if (rejection != null) {
+      return rejection;
+    }
 
-      int errored = contactsFromCsv.size() - counter.get();
+    ImportJob job = contactImportJobService.submit(file, loggedInUser.getId(), mode, errorReport);
+    return new ResponseEntity<>(importJobStatusDTOMapper.apply(job), HttpStatus.ACCEPTED);
+  }
 
-      return new ResponseEntity<>(counter + " contact(s) added. " + errored + " errored.",
-          HttpStatus.OK);
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> getImportJob(String jobId, AppUserPrincipal loggedInUser) {
 
-    } catch (IOException e) {
-      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    return contactImportJobService.getJob(jobId, loggedInUser.getId())
+        .<ResponseEntity<?>>map(job ->
+            new ResponseEntity<>(importJobStatusDTOMapper.apply(job), HttpStatus.OK))
+        .orElseGet(() -> new ResponseEntity<>("Import job not found", HttpStatus.NOT_FOUND));
+  }
+
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ResponseEntity<?> getImportJobErrorReport(String jobId, AppUserPrincipal loggedInUser) {
+
+    Optional<ImportJob> job = contactImportJobService.getJob(jobId, loggedInUser.getId());
+
+    if (job.isEmpty()) {
+      return new ResponseEntity<>("Import job not found", HttpStatus.NOT_FOUND);
+    }
+    if (job.get().getErrorReport() == null) {
+      return new ResponseEntity<>("No error report was requested for this import",
+          HttpStatus.NOT_FOUND);
+    }
+    if (!job.get().isFinished()) {
+      return new ResponseEntity<>("Import job is still running", HttpStatus.CONFLICT);
     }
+
+    return ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"import-errors-" + jobId + ".csv\"")
+        .contentType(MediaType.parseMediaType("text/csv"))
+        .body(new FileSystemResource(job.get().getErrorReport()));
   }
 
   public ResponseEntity<?> countAllContacts() {
     return CountUtil.count(contactRepo);
   }
+
+  private static String exportETag(AppUserPrincipal loggedInUser, long version, boolean gzip) {
+    return "\"" + loggedInUser.getTsid() + "-" + version + (gzip ? "-gzip" : "") + "\"";
+  }
+
+  private static boolean acceptsGzip(HttpHeaders requestHeaders) {
+    for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+      for (String coding : value.split(",")) {
+        String[] parts = coding.trim().split(";");
+        if (parts[0].trim().equalsIgnoreCase("gzip")
+            && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static ResponseEntity<?> checkCsvUpload(MultipartFile file) {
+
+    String fileName = file.getOriginalFilename();
+
+    Optional<String> fileExtension = Optional.ofNullable(fileName)
+        .filter(f -> f.contains("."))
+        .map(f -> f.substring(fileName.lastIndexOf(".") + 1));
+    if(fileExtension.isPresent() && !CSV_UPLOAD_EXTENSIONS.contains(fileExtension.get())) {
+      return new ResponseEntity<>("File type is not .csv, .gz or .zip", HttpStatus.BAD_REQUEST);
+    }
+
+    if(file.isEmpty()) {
+      return new ResponseEntity<>("File is empty", HttpStatus.BAD_REQUEST);
+    }
+    return null;
+  }
+
+  private static String containsPattern(String keyword) {
+    String escaped = keyword.toLowerCase(Locale.ROOT)
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_");
+    return "%" + escaped + "%";
+  }
 }
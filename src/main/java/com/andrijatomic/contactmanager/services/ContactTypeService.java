@@ -6,9 +6,9 @@ import com.andrijatomic.contactmanager.dtos.UpdateContactTypeRequestDTO;
 import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
 import com.andrijatomic.contactmanager.models.ContactType;
 import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
 import com.github.f4b6a3.tsid.TsidCreator;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -19,25 +19,23 @@ import org.springframework.transaction.annotation.Transactional;
 public class ContactTypeService {
 
   private final ContactTypeRepo contactTypeRepo;
+  private final ContactTypeRegistry contactTypeRegistry;
 
-  public ContactTypeService(ContactTypeRepo contactTypeRepo) {
+  public ContactTypeService(ContactTypeRepo contactTypeRepo,
+      ContactTypeRegistry contactTypeRegistry) {
     this.contactTypeRepo = contactTypeRepo;
+    this.contactTypeRegistry = contactTypeRegistry;
   }
 
   public ResponseEntity<?> getAllContactTypes() {
 
-    List<ContactType> allContactTypes = contactTypeRepo.findAll();
+    List<ContactTypeResponseDTO> allContactTypes = contactTypeRegistry.getAll();
 
     if (allContactTypes.isEmpty()) {
       return new ResponseEntity<>("No contact types found", HttpStatus.NOT_FOUND);
     }
 
-    return new ResponseEntity<>(contactTypeRepo
-        .findAll()
-        .stream()
-        .map(type -> new ContactTypeResponseDTO(type.getTsid().toString(), type.getType()))
-        .collect(Collectors.toList()),
-        HttpStatus.OK);
+    return new ResponseEntity<>(allContactTypes, HttpStatus.OK);
   }
 
   public ResponseEntity<ContactTypeResponseDTO> addContactType(AddContactTypeRequestDTO requestDTO) {
@@ -47,6 +45,7 @@ public class ContactTypeService {
     );
 
     ContactType savedContactType = contactTypeRepo.save(contactType);
+    contactTypeRegistry.register(savedContactType);
 
     return new ResponseEntity<>(new ContactTypeResponseDTO(
         savedContactType.getTsid().toString(), savedContactType.getType()), HttpStatus.OK
@@ -62,6 +61,7 @@ public class ContactTypeService {
     retrievedType.setType(requestDTO.type());
 
     ContactType savedContactType = contactTypeRepo.save(retrievedType);
+    contactTypeRegistry.register(savedContactType);
 
     return new ResponseEntity<>(new ContactTypeResponseDTO(
         savedContactType.getTsid().toString(), savedContactType.getType()), HttpStatus.OK
@@ -0,0 +1,238 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.andrijatomic.contactmanager.utils.PrerenderedTemplate;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.TemplateEngine;
+
+/**
+ * Sends the mails waiting in the email_outbox table. A poll claims a batch with
+ * {@code FOR UPDATE SKIP LOCKED}, so several instances never claim the same mail, and moves the
+ * claimed mails' next attempt past a lease before committing. The mails are then sent without a
+ * transaction, split across a bounded pool where every thread sends its share over one SMTP
+ * connection.
+ *
+ * <p>A failed mail is retried with exponential backoff, and given up after the maximum number of
+ * attempts. A mail whose instance dies while sending it is retried once its lease runs out.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(value = "contactmanager.mail.outbox.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class EmailOutboxDispatcher {
+
+  private static final TypeReference<Map<String, Object>> VARIABLES =
+      new TypeReference<>() {
+      };
+
+  private record OutboxMail(long id, String recipient, String subject, String template,
+                            String variables, int attempts) {
+
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final JavaMailSender javaMailSender;
+  private final TemplateEngine templateEngine;
+  private final ObjectMapper objectMapper;
+  private final Executor emailOutboxExecutor;
+  private final InternetAddress fromAddress;
+  private final Map<String, PrerenderedTemplate> templates = new ConcurrentHashMap<>();
+  private final int batchSize;
+  private final int threads;
+  private final int maxAttempts;
+  private final long backoffSeconds;
+  private final long maxBackoffSeconds;
+  private final long leaseSeconds;
+
+  public EmailOutboxDispatcher(JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager, JavaMailSender javaMailSender,
+      TemplateEngine templateEngine, ObjectMapper objectMapper,
+      @Qualifier("emailOutboxExecutor") Executor emailOutboxExecutor,
+      @Value("${spring.mail.username}") String from,
+      @Value("${contactmanager.mail.outbox.batch-size:50}") int batchSize,
+      @Value("${contactmanager.mail.outbox.threads:2}") int threads,
+      @Value("${contactmanager.mail.outbox.max-attempts:8}") int maxAttempts,
+      @Value("${contactmanager.mail.outbox.backoff-seconds:30}") long backoffSeconds,
+      @Value("${contactmanager.mail.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+      @Value("${contactmanager.mail.outbox.lease-seconds:300}") long leaseSeconds)
+      throws AddressException {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.javaMailSender = javaMailSender;
+    this.templateEngine = templateEngine;
+    this.objectMapper = objectMapper;
+    this.emailOutboxExecutor = emailOutboxExecutor;
+    this.fromAddress = new InternetAddress(from);
+    this.batchSize = batchSize;
+    this.threads = threads;
+    this.maxAttempts = maxAttempts;
+    this.backoffSeconds = backoffSeconds;
+    this.maxBackoffSeconds = maxBackoffSeconds;
+    this.leaseSeconds = leaseSeconds;
+  }
+
+  /**
+   * Sends one batch and returns the number of mails claimed. The next poll only starts once the
+   * batch is done.
+   */
+  @Scheduled(fixedDelayString = "${contactmanager.mail.outbox.poll-interval-ms:1000}")
+  public int dispatch() {
+
+    List<OutboxMail> mails = claim();
+    if (mails.isEmpty()) {
+      return 0;
+    }
+
+    int sliceSize = (mails.size() + threads - 1) / threads;
+    List<CompletableFuture<Void>> slices = new ArrayList<>();
+    for (int start = 0; start < mails.size(); start += sliceSize) {
+      List<OutboxMail> slice = mails.subList(start, Math.min(start + sliceSize, mails.size()));
+      slices.add(CompletableFuture.runAsync(() -> send(slice), emailOutboxExecutor));
+    }
+    CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new)).join();
+
+    return mails.size();
+  }
+
+  private List<OutboxMail> claim() {
+    return transactionTemplate.execute(status -> {
+      List<OutboxMail> mails = jdbcTemplate.query(
+          "SELECT id, recipient, subject, template, variables, attempts FROM email_outbox"
+              + " WHERE sent_at IS NULL AND failed_at IS NULL AND next_attempt_at <= now()"
+              + " ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED",
+          (rs, rowNum) -> new OutboxMail(rs.getLong("id"), rs.getString("recipient"),
+              rs.getString("subject"), rs.getString("template"), rs.getString("variables"),
+              rs.getInt("attempts")),
+          batchSize);
+
+      if (!mails.isEmpty()) {
+        jdbcTemplate.update("UPDATE email_outbox"
+                + " SET next_attempt_at = now() + make_interval(secs => ?)"
+                + " WHERE id = ANY (?)",
+            leaseSeconds, mails.stream().map(OutboxMail::id).toArray(Long[]::new));
+      }
+      return mails;
+    });
+  }
+
+  private void send(List<OutboxMail> mails) {
+
+    Map<MimeMessage, OutboxMail> messages = new IdentityHashMap<>();
+    for (OutboxMail mail : mails) {
+      try {
+        messages.put(render(mail), mail);
+      } catch (Exception e) {
+        failed(mail, e);
+      }
+    }
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    // One call sends all messages over the same connection
+    Map<Object, Exception> failures = Map.of();
+    try {
+      javaMailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+    } catch (MailSendException e) {
+      failures = e.getFailedMessages().isEmpty() ? allFailed(messages.keySet(), e)
+          : e.getFailedMessages();
+    } catch (MailException e) {
+      failures = allFailed(messages.keySet(), e);
+    }
+
+    List<Long> sent = new ArrayList<>();
+    for (Map.Entry<MimeMessage, OutboxMail> message : messages.entrySet()) {
+      Exception failure = failures.get(message.getKey());
+      if (failure == null) {
+        sent.add(message.getValue().id());
+      } else {
+        failed(message.getValue(), failure);
+      }
+    }
+
+    if (!sent.isEmpty()) {
+      jdbcTemplate.update("UPDATE email_outbox SET sent_at = now(), attempts = attempts + 1,"
+          + " last_error = NULL WHERE id = ANY (?)", (Object) sent.toArray(Long[]::new));
+    }
+  }
+
+  private static Map<Object, Exception> allFailed(Collection<MimeMessage> messages,
+      Exception e) {
+    Map<Object, Exception> failures = new IdentityHashMap<>();
+    for (MimeMessage message : messages) {
+      failures.put(message, e);
+    }
+    return failures;
+  }
+
+  /**
+   * Renders from the prerendered template, parsed once per template and shape of variables,
+   * instead of evaluating the template for every mail.
+   */
+  private MimeMessage render(OutboxMail mail) throws MessagingException, IOException {
+    Map<String, String> values = PrerenderedTemplate
+        .flatten(objectMapper.readValue(mail.variables(), VARIABLES));
+    PrerenderedTemplate template = templates.computeIfAbsent(
+        mail.template() + values.keySet(),
+        key -> PrerenderedTemplate.prerender(templateEngine, mail.template(), values.keySet()));
+
+    MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+    mimeMessage.setFrom(fromAddress);
+    mimeMessage.setRecipients(Message.RecipientType.TO, InternetAddress.parse(mail.recipient()));
+    mimeMessage.setSubject(mail.subject(), StandardCharsets.UTF_8.name());
+    mimeMessage.setText(template.render(values), StandardCharsets.UTF_8.name(), "html");
+    return mimeMessage;
+  }
+
+  private void failed(OutboxMail mail, Exception e) {
+    int attempts = mail.attempts() + 1;
+
+    if (attempts >= maxAttempts) {
+      log.error("Giving up on mail {} to {} after {} attempts", mail.id(), mail.recipient(),
+          attempts, e);
+      jdbcTemplate.update("UPDATE email_outbox SET attempts = ?, last_error = ?,"
+          + " failed_at = now() WHERE id = ?", attempts, String.valueOf(e.getMessage()), mail.id());
+      return;
+    }
+
+    log.warn("Sending mail {} failed, attempt {} of {}", mail.id(), attempts, maxAttempts, e);
+    jdbcTemplate.update("UPDATE email_outbox SET attempts = ?, last_error = ?,"
+            + " next_attempt_at = now() + make_interval(secs => ?) WHERE id = ?",
+        attempts, String.valueOf(e.getMessage()), backoff(attempts), mail.id());
+  }
+
+  /**
+   * Doubles the wait with every attempt, starting at the configured backoff.
+   */
+  private long backoff(int attempts) {
+    return Math.min(backoffSeconds << Math.min(attempts - 1, 30), maxBackoffSeconds);
+  }
+}
@@ -0,0 +1,41 @@
+package com.andrijatomic.contactmanager.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes mails to the email_outbox table in the caller's transaction, so a mail is only ever sent
+ * for data that was committed. Rendering and sending is left to {@link EmailOutboxDispatcher}.
+ */
+@Service
+public class EmailOutboxService {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+
+  public EmailOutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param variables variables of the Thymeleaf template, they have to be serializable to JSON
+   */
+  public void enqueue(String recipient, String subject, String template,
+      Map<String, Object> variables) {
+
+    String json;
+    try {
+      json = objectMapper.writeValueAsString(variables);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Mail variables can't be serialized", e);
+    }
+
+    jdbcTemplate.update("INSERT INTO email_outbox (recipient, subject, template, variables,"
+            + " next_attempt_at, created_at) VALUES (?, ?, ?, ?, now(), now())",
+        recipient, subject, template, json);
+  }
+}
@@ -7,6 +7,7 @@ import io.swagger.v3.oas.models.examples.Example;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.media.Content;
 import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.springdoc.core.models.GroupedOpenApi;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,6 +53,11 @@ public class SpringdocConfig {
     components.addResponses("badRequest", badRequestApi);
     components.addResponses("internalServerError", internalServerErrorResponseApi);
 
+    components.addSecuritySchemes("bearer_auth", new SecurityScheme()
+        .type(SecurityScheme.Type.HTTP)
+        .scheme("bearer")
+        .bearerFormat("JWT"));
+
     return new OpenAPI().components(components)
         .info(new Info().title("Contact manager REST API")
         .version("1.0.0")
@@ -99,7 +105,7 @@ public class SpringdocConfig {
 
   @Bean
   public GroupedOpenApi authenticationApi() {
-    String[] paths = {"/login"};
+    String[] paths = {"/login", "/login/**"};
     return GroupedOpenApi.builder()
         .group("Authentication resource")
         .displayName("Authentication resource")
@@ -3,7 +3,6 @@ package com.andrijatomic.contactmanager.utils;
 import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
 import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
 import com.andrijatomic.contactmanager.models.Contact;
-import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
 import com.github.f4b6a3.tsid.TsidCreator;
 import java.util.function.Function;
 import org.springframework.stereotype.Service;
@@ -11,12 +10,10 @@ import org.springframework.stereotype.Service;
 @Service
 public class AddContactCsvDTOMapper implements Function<AddContactCsvDTO, Contact> {
 
-  private final ContactTypeRepo contactTypeRepo;
+  private final ContactTypeRegistry contactTypeRegistry;
 
-
-
-  public AddContactCsvDTOMapper(ContactTypeRepo contactTypeRepo) {
-    this.contactTypeRepo = contactTypeRepo;
+  public AddContactCsvDTOMapper(ContactTypeRegistry contactTypeRegistry) {
+    this.contactTypeRegistry = contactTypeRegistry;
   }
 
   @Override
@@ -29,7 +26,7 @@ public class AddContactCsvDTOMapper implements Function<AddContactCsvDTO, Contac
         addContactCsvDTO.getAddress(),
         addContactCsvDTO.getPhoneNumber(),
         null,
-        contactTypeRepo.getContactTypeByType(addContactCsvDTO.getContactType())
+        contactTypeRegistry.getByType(addContactCsvDTO.getContactType())
             .orElseThrow(() -> new ContactTypeNotFoundException(addContactCsvDTO.getContactType()))
     );
   }
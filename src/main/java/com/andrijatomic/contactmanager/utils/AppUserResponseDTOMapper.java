@@ -2,16 +2,18 @@ package com.andrijatomic.contactmanager.utils;
 
 import com.andrijatomic.contactmanager.dtos.AppUserResponseDTO;
 import com.andrijatomic.contactmanager.dtos.AppUserRoleResponseDTO;
-import com.andrijatomic.contactmanager.models.AppUser;
+import com.andrijatomic.contactmanager.repos.projections.AppUserView;
+import com.andrijatomic.contactmanager.repos.projections.AppUserWithRoles;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 
 @Service
-public class AppUserResponseDTOMapper implements Function<AppUser, AppUserResponseDTO> {
+public class AppUserResponseDTOMapper implements Function<AppUserWithRoles, AppUserResponseDTO> {
 
   @Override
-  public AppUserResponseDTO apply(AppUser appUser) {
+  public AppUserResponseDTO apply(AppUserWithRoles appUserWithRoles) {
+    AppUserView appUser = appUserWithRoles.appUser();
 
     return new AppUserResponseDTO(
         appUser.getTsid().toString(),
@@ -19,9 +21,9 @@ public class AppUserResponseDTOMapper implements Function<AppUser, AppUserRespon
         appUser.getLastName(),
         appUser.getEmail(),
         appUser.getPhoneNumber(),
-        appUser.isPhoneVerified(),
-        appUser
-            .getRoles()
+        appUser.getPhoneVerified(),
+        appUserWithRoles
+            .roles()
             .stream()
             .map(role -> new AppUserRoleResponseDTO(role.getTsid().toString(),
             role.getRoleName()))
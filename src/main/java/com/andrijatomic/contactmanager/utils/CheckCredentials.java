@@ -1,18 +1,15 @@
 package com.andrijatomic.contactmanager.utils;
 
-import com.andrijatomic.contactmanager.models.AppUser;
 import com.andrijatomic.contactmanager.models.Contact;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
 
 public class CheckCredentials {
 
-  public static boolean checkIfAppUserOwnsContact(AppUser loggedInUser, Contact contact) {
-    return contact.getAppUser().getTsid().equals(loggedInUser.getTsid());
+  public static boolean checkIfAppUserOwnsContact(AppUserPrincipal loggedInUser, Contact contact) {
+    return contact.getAppUser().getId().equals(loggedInUser.getId());
   }
 
-  public static boolean checkIfAdmin(AppUser loggedInUser) {
-    return loggedInUser
-        .getAuthorities()
-        .stream()
-        .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals("ROLE_ADMIN"));
+  public static boolean checkIfAdmin(AppUserPrincipal loggedInUser) {
+    return loggedInUser.hasAuthority("ROLE_ADMIN");
   }
 }
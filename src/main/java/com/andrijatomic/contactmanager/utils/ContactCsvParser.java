@@ -0,0 +1,202 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads the five column contact CSV format of {@link AddContactCsvDTO} straight from a reusable
+ * char buffer. Unquoted fields that don't straddle a buffer refill become a String without any
+ * intermediate copy. Quoted fields may contain separators, doubled quotes and line breaks.
+ * Spaces and tabs at the start of a field are dropped, like opencsv's ignoreLeadingWhiteSpace
+ * did, so a space after a separator doesn't end up in the value. Missing columns are left null, extra columns
+ * and blank lines are skipped.
+ */
+public class ContactCsvParser {
+
+  private static final int COLUMNS = 5;
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private final Reader reader;
+  private final char[] buffer;
+  private final StringBuilder field = new StringBuilder(64);
+  private final String[] values = new String[COLUMNS];
+
+  private int position;
+  private int limit;
+  private long lineNumber = 1;
+  private long recordLineNumber;
+  private String value;
+
+  public ContactCsvParser(Reader reader) {
+    this(reader, DEFAULT_BUFFER_SIZE);
+  }
+
+  public ContactCsvParser(Reader reader, int bufferSize) {
+    this.reader = reader;
+    this.buffer = new char[bufferSize];
+  }
+
+  /**
+   * @return the next row, or null once the input is exhausted
+   */
+  public AddContactCsvDTO next() throws IOException {
+    while (fill()) {
+      recordLineNumber = lineNumber;
+
+      if (readRecord() == 1 && values[0].isEmpty()) {
+        continue;
+      }
+      return new AddContactCsvDTO(values[0], values[1], values[2], values[3], values[4]);
+    }
+    return null;
+  }
+
+  /**
+   * Line on which the row last returned by {@link #next()} starts, counting from 1.
+   */
+  public long getLineNumber() {
+    return recordLineNumber;
+  }
+
+  private int readRecord() throws IOException {
+    Arrays.fill(values, null);
+    int column = 0;
+    boolean endOfRecord;
+
+    do {
+      endOfRecord = readField();
+      if (column < COLUMNS) {
+        values[column] = value;
+      }
+      column++;
+    } while (!endOfRecord);
+
+    return column;
+  }
+
+  /**
+   * Reads one field into {@link #value}.
+   *
+   * @return whether the field ended the record
+   */
+  private boolean readField() throws IOException {
+    field.setLength(0);
+
+    int c = peek();
+    while (c == ' ' || c == '\t') {
+      position++;
+      c = peek();
+    }
+
+    if (c == '"') {
+      position++;
+      return readQuoted();
+    }
+    return readUnquoted();
+  }
+
+  private boolean readUnquoted() throws IOException {
+    while (true) {
+      int start = position;
+
+      while (position < limit) {
+        char ch = buffer[position];
+
+        if (ch == ',' || ch == '\n' || ch == '\r') {
+          value = field.length() == 0
+              ? new String(buffer, start, position - start)
+              : field.append(buffer, start, position - start).toString();
+          position++;
+          return ch != ',' && endLine(ch);
+        }
+        position++;
+      }
+
+      field.append(buffer, start, position - start);
+      if (!fill()) {
+        value = field.toString();
+        return true;
+      }
+    }
+  }
+
+  private boolean readQuoted() throws IOException {
+    field.setLength(0);
+
+    while (true) {
+      int c = read();
+
+      if (c == -1) {
+        value = field.toString();
+        return true;
+      }
+
+      if (c == '"') {
+        if (peek() == '"') {
+          position++;
+          field.append('"');
+          continue;
+        }
+        value = field.toString();
+        return skipToSeparator();
+      }
+
+      if (c == '\n') {
+        lineNumber++;
+      }
+      field.append((char) c);
+    }
+  }
+
+  /**
+   * Drops anything between a closing quote and the next separator.
+   */
+  private boolean skipToSeparator() throws IOException {
+    while (true) {
+      int c = read();
+
+      if (c == -1) {
+        return true;
+      }
+      if (c == ',') {
+        return false;
+      }
+      if (c == '\n' || c == '\r') {
+        return endLine((char) c);
+      }
+    }
+  }
+
+  private boolean endLine(char terminator) throws IOException {
+    if (terminator == '\r' && peek() == '\n') {
+      position++;
+    }
+    lineNumber++;
+    return true;
+  }
+
+  private boolean fill() throws IOException {
+    if (position < limit) {
+      return true;
+    }
+
+    int read;
+    do {
+      read = reader.read(buffer, 0, buffer.length);
+    } while (read == 0);
+
+    position = 0;
+    limit = Math.max(read, 0);
+    return read > 0;
+  }
+
+  private int peek() throws IOException {
+    return fill() ? buffer[position] : -1;
+  }
+
+  private int read() throws IOException {
+    return fill() ? buffer[position++] : -1;
+  }
+}
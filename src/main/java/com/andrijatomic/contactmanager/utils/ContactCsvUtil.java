@@ -0,0 +1,27 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import java.io.Writer;
+
+public class ContactCsvUtil {
+
+  public static ICSVWriter writer(Writer writer) {
+    return new CSVWriter(writer, CSVWriter.DEFAULT_SEPARATOR, CSVWriter.NO_QUOTE_CHARACTER,
+        CSVWriter.DEFAULT_ESCAPE_CHARACTER, CSVWriter.DEFAULT_LINE_END);
+  }
+
+  /**
+   * Same column order as the {@code @CsvBindByPosition} positions on {@link ContactResponseDTO}.
+   */
+  public static String[] toRow(ContactResponseDTO contact) {
+    return new String[]{
+        contact.firstName(),
+        contact.lastName(),
+        contact.phoneNumber(),
+        contact.address(),
+        contact.contactType()
+    };
+  }
+}
@@ -0,0 +1,124 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the {@code @NotBlank}, {@code @Size} and {@code @Pattern} constraints declared on
+ * {@link AddContactCsvDTO} without going through Bean Validation. The annotations are read once
+ * and the patterns compiled up front, so the DTO stays the single place the rules are defined.
+ */
+@Component
+public class ContactCsvValidator {
+
+  public record Violation(String field, String message) {
+
+  }
+
+  private final List<FieldRule> rules = List.of(
+      FieldRule.of("firstName", AddContactCsvDTO::getFirstName),
+      FieldRule.of("lastName", AddContactCsvDTO::getLastName),
+      FieldRule.of("phoneNumber", AddContactCsvDTO::getPhoneNumber),
+      FieldRule.of("address", AddContactCsvDTO::getAddress),
+      FieldRule.of("contactType", AddContactCsvDTO::getContactType)
+  );
+
+  public boolean isValid(AddContactCsvDTO row) {
+    for (FieldRule rule : rules) {
+      if (rule.check(row) != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the first violated constraint of every invalid field, empty if the row is valid
+   */
+  public List<Violation> validate(AddContactCsvDTO row) {
+    List<Violation> violations = null;
+
+    for (FieldRule rule : rules) {
+      String message = rule.check(row);
+      if (message != null) {
+        if (violations == null) {
+          violations = new ArrayList<>(rules.size());
+        }
+        violations.add(new Violation(rule.name(), message));
+      }
+    }
+    return violations == null ? List.of() : violations;
+  }
+
+  private record FieldRule(String name, Function<AddContactCsvDTO, String> getter,
+                           String notBlankMessage, Size size, String sizeMessage,
+                           java.util.regex.Pattern pattern, String patternMessage) {
+
+    static FieldRule of(String name, Function<AddContactCsvDTO, String> getter) {
+      Field field;
+      try {
+        field = AddContactCsvDTO.class.getDeclaredField(name);
+      } catch (NoSuchFieldException e) {
+        throw new IllegalStateException(e);
+      }
+
+      NotBlank notBlank = field.getAnnotation(NotBlank.class);
+      Size size = field.getAnnotation(Size.class);
+      Pattern pattern = field.getAnnotation(Pattern.class);
+
+      return new FieldRule(
+          name,
+          getter,
+          notBlank == null ? null : message(notBlank.message(), "must not be blank"),
+          size,
+          size == null ? null : message(size.message(),
+              "size must be between " + size.min() + " and " + size.max()),
+          pattern == null ? null : java.util.regex.Pattern.compile(pattern.regexp(),
+              flags(pattern.flags())),
+          pattern == null ? null : message(pattern.message(),
+              "must match \"" + pattern.regexp() + "\"")
+      );
+    }
+
+    /**
+     * @return the message of the first failed constraint, null if the value is valid
+     */
+    String check(AddContactCsvDTO row) {
+      String value = getter.apply(row);
+
+      if (value == null) {
+        return notBlankMessage;
+      }
+      if (notBlankMessage != null && value.trim().isEmpty()) {
+        return notBlankMessage;
+      }
+      if (size != null && (value.length() < size.min() || value.length() > size.max())) {
+        return sizeMessage;
+      }
+      if (pattern != null && !pattern.matcher(value).matches()) {
+        return patternMessage;
+      }
+      return null;
+    }
+
+    private static String message(String declared, String defaultMessage) {
+      // Message keys like {jakarta.validation.constraints.NotBlank.message} aren't interpolated
+      return declared.startsWith("{") ? defaultMessage : declared;
+    }
+
+    private static int flags(Pattern.Flag[] flags) {
+      int result = 0;
+      for (Pattern.Flag flag : flags) {
+        result |= flag.getValue();
+      }
+      return result;
+    }
+  }
+}
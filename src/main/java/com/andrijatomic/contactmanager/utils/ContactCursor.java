@@ -0,0 +1,36 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last contact on a keyset page. Clients get it as an opaque url-safe token made
+ * of the sort property, the contact tsid and the contact's value of the sort property.
+ */
+public record ContactCursor(String sortProperty, Long tsid, String sortValue) {
+
+  public static ContactCursor of(ContactResponseDTO contact, String sortProperty) {
+    return new ContactCursor(sortProperty, Long.parseLong(contact.contactTsid()),
+        ContactSortUtil.sortValue(contact, sortProperty));
+  }
+
+  public String encode() {
+    String raw = sortProperty + ":" + tsid + ":" + sortValue;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the token wasn't produced by {@link #encode()}
+   */
+  public static ContactCursor decode(String token) {
+    String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    String[] parts = raw.split(":", 3);
+
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    return new ContactCursor(parts[0], Long.parseLong(parts[1]), parts[2]);
+  }
+}
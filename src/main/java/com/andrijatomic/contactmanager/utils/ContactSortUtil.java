@@ -0,0 +1,36 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import org.springframework.data.domain.Sort;
+
+public class ContactSortUtil {
+
+  /**
+   * Maps the client supplied sort field to a contact property, falling back to first name for
+   * anything unknown.
+   */
+  public static String sortProperty(String fieldName) {
+    return switch (fieldName) {
+      case "lastName" -> "lastName";
+      case "address" -> "address";
+      case "phoneNumber" -> "phoneNumber";
+      default -> "firstName";
+    };
+  }
+
+  /**
+   * The tsid is always added last so that pages are stable between requests.
+   */
+  public static Sort sortBy(String fieldName) {
+    return Sort.by(sortProperty(fieldName)).and(Sort.by("tsid"));
+  }
+
+  public static String sortValue(ContactResponseDTO contact, String property) {
+    return switch (property) {
+      case "lastName" -> contact.lastName();
+      case "address" -> contact.address();
+      case "phoneNumber" -> contact.phoneNumber();
+      default -> contact.firstName();
+    };
+  }
+}
@@ -0,0 +1,104 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ContactTypeResponseDTO;
+import com.andrijatomic.contactmanager.models.ContactType;
+import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the contact_types table. Lookups return detached {@link ContactType}
+ * instances that can be set on a contact without a query. Every write to the table has to go
+ * through {@link #register(ContactType)} so the copy stays current.
+ */
+@Component
+public class ContactTypeRegistry {
+
+  private final ContactTypeRepo contactTypeRepo;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+  public ContactTypeRegistry(ContactTypeRepo contactTypeRepo) {
+    this.contactTypeRepo = contactTypeRepo;
+  }
+
+  public Optional<ContactType> getByTsid(Long tsid) {
+    return Optional.ofNullable(snapshot().byTsid().get(tsid)).map(Entry::toContactType);
+  }
+
+  public Optional<ContactType> getByType(String type) {
+    return Optional.ofNullable(snapshot().byType().get(type)).map(Entry::toContactType);
+  }
+
+  public List<ContactTypeResponseDTO> getAll() {
+    return snapshot().all();
+  }
+
+  /**
+   * Publishes a saved contact type once the surrounding transaction commits, so readers never
+   * see a type that may still be rolled back.
+   */
+  public void register(ContactType contactType) {
+    Entry entry = Entry.of(contactType);
+    TransactionCallbacks.afterCommit(() -> snapshot.updateAndGet(current -> {
+      if (current == null) {
+        return null;
+      }
+      Map<Long, Entry> byTsid = new HashMap<>(current.byTsid());
+      byTsid.put(entry.tsid(), entry);
+      return Snapshot.of(byTsid.values());
+    }));
+  }
+
+  public void refresh() {
+    snapshot.set(load());
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot.get();
+    if (current == null) {
+      current = load();
+      if (!snapshot.compareAndSet(null, current)) {
+        current = snapshot.get();
+      }
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    return Snapshot.of(contactTypeRepo.findAll().stream().map(Entry::of).toList());
+  }
+
+  private record Entry(Long id, Long tsid, String type) {
+
+    static Entry of(ContactType contactType) {
+      return new Entry(contactType.getId(), contactType.getTsid(), contactType.getType());
+    }
+
+    ContactType toContactType() {
+      return new ContactType(id, tsid, type, null);
+    }
+  }
+
+  private record Snapshot(Map<Long, Entry> byTsid, Map<String, Entry> byType,
+                          List<ContactTypeResponseDTO> all) {
+
+    static Snapshot of(Collection<Entry> unordered) {
+      List<Entry> entries = unordered.stream().sorted(Comparator.comparing(Entry::id)).toList();
+      return new Snapshot(
+          entries.stream().collect(Collectors.toUnmodifiableMap(Entry::tsid, Function.identity())),
+          entries.stream().collect(Collectors.toUnmodifiableMap(Entry::type, Function.identity(),
+              (first, second) -> first)),
+          entries.stream()
+              .map(entry -> new ContactTypeResponseDTO(entry.tsid().toString(), entry.type()))
+              .toList());
+    }
+  }
+}
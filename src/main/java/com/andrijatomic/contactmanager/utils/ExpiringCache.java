@@ -0,0 +1,93 @@
+package com.andrijatomic.contactmanager.utils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small bounded in-memory cache whose entries expire a fixed time after they were written.
+ * When the cache is full, expired entries are purged first and then arbitrary entries are
+ * dropped until there is room for the new one.
+ */
+public class ExpiringCache<K, V> {
+
+  private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final long ttlNanos;
+  private final int maxSize;
+
+  public ExpiringCache(Duration ttl, int maxSize) {
+    this.ttlNanos = ttl.toNanos();
+    this.maxSize = maxSize;
+  }
+
+  public V get(K key, Function<? super K, ? extends V> loader) {
+    V cached = getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    V loaded = loader.apply(key);
+    if (loaded != null) {
+      put(key, loaded);
+    }
+    return loaded;
+  }
+
+  public V getIfPresent(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(System.nanoTime())) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.value();
+  }
+
+  public void put(K key, V value) {
+    if (maxSize <= 0 || ttlNanos <= 0) {
+      return;
+    }
+    if (entries.size() >= maxSize && !entries.containsKey(key)) {
+      makeRoom();
+    }
+    entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+  }
+
+  public void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public void invalidateIf(Predicate<? super V> predicate) {
+    entries.values().removeIf(entry -> predicate.test(entry.value()));
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private void makeRoom() {
+    long now = System.nanoTime();
+    entries.values().removeIf(entry -> entry.isExpired(now));
+
+    Iterator<K> keys = entries.keySet().iterator();
+    while (entries.size() >= maxSize && keys.hasNext()) {
+      keys.next();
+      keys.remove();
+    }
+  }
+
+  private record Entry<V>(V value, long expiresAt) {
+
+    boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.services.ContactExportService.Snapshot;
+import java.time.Instant;
+import lombok.Getter;
+
+@Getter
+public class ExportJob {
+
+  public enum Status {
+    QUEUED, RUNNING, COMPLETED, FAILED
+  }
+
+  private final String id;
+  private final Long appUserId;
+  private final boolean gzip;
+  private final Instant submittedAt = Instant.now();
+
+  private volatile Status status = Status.QUEUED;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private volatile String error;
+  private volatile Snapshot snapshot;
+
+  public ExportJob(String id, Long appUserId, boolean gzip) {
+    this.id = id;
+    this.appUserId = appUserId;
+    this.gzip = gzip;
+  }
+
+  public void start() {
+    startedAt = Instant.now();
+    status = Status.RUNNING;
+  }
+
+  public void complete(Snapshot snapshot) {
+    this.snapshot = snapshot;
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  public void fail(String error) {
+    this.error = error;
+    finishedAt = Instant.now();
+    status = Status.FAILED;
+  }
+
+  public boolean isFinished() {
+    return status == Status.COMPLETED || status == Status.FAILED;
+  }
+}
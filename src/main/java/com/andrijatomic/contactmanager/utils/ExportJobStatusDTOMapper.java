@@ -0,0 +1,23 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ExportJobStatusDTO;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ExportJobStatusDTOMapper implements Function<ExportJob, ExportJobStatusDTO> {
+
+  @Override
+  public ExportJobStatusDTO apply(ExportJob job) {
+    return new ExportJobStatusDTO(
+        job.getId(),
+        job.getStatus().name(),
+        job.getSnapshot() != null ? job.getSnapshot().version() : null,
+        job.isGzip(),
+        job.getSubmittedAt(),
+        job.getStartedAt(),
+        job.getFinishedAt(),
+        job.getError()
+    );
+  }
+}
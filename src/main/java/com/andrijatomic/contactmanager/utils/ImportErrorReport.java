@@ -0,0 +1,97 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator.Violation;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes one {@code line,column,message} CSV row per violation of a rejected import row as soon
+ * as the row is rejected, so the report never has to be held in memory. For files of a zip
+ * archive the line is prefixed with the file name, as in {@code contacts/a.csv:12}, and files that
+ * are skipped get a row of their own with the file name as the line. A streamed report ends with
+ * a status row, so a client can tell a finished import from a report that was cut off. The files
+ * are imported in parallel, so writes are synchronized on the shared writer.
+ */
+public class ImportErrorReport {
+
+  public static final ImportErrorReport NONE = new ImportErrorReport(null);
+
+  private static final String[] HEADER = {"line", "column", "message"};
+
+  private final ICSVWriter writer;
+  private final String linePrefix;
+
+  private ImportErrorReport(ICSVWriter writer) {
+    this(writer, "");
+  }
+
+  private ImportErrorReport(ICSVWriter writer, String linePrefix) {
+    this.writer = writer;
+    this.linePrefix = linePrefix;
+  }
+
+  public static ImportErrorReport writingTo(Writer writer) {
+    ICSVWriter csvWriter = new CSVWriter(writer);
+    csvWriter.writeNext(HEADER, false);
+    return new ImportErrorReport(csvWriter);
+  }
+
+  /**
+   * Report for one file of a zip archive, written to the same output.
+   */
+  public ImportErrorReport forFile(String fileName) {
+    return writer == null ? NONE : new ImportErrorReport(writer, fileName + ":");
+  }
+
+  public void reject(long lineNumber, List<Violation> violations) {
+    if (writer == null) {
+      return;
+    }
+
+    String line = linePrefix + lineNumber;
+    synchronized (writer) {
+      for (Violation violation : violations) {
+        writer.writeNext(new String[]{line, violation.field(), violation.message()}, false);
+      }
+    }
+  }
+
+  /**
+   * Reports a file of a zip archive that was not imported.
+   */
+  public void skipFile(String fileName, String reason) {
+    if (writer == null) {
+      return;
+    }
+
+    synchronized (writer) {
+      writer.writeNext(new String[]{fileName, "", reason}, false);
+    }
+  }
+
+  /**
+   * Ends the report with a row that has no line, the status of the import in place of the column
+   * and the summary or the reason it didn't finish as the message.
+   */
+  public void finish(ImportJob.Status status, String message) throws IOException {
+    if (writer == null) {
+      return;
+    }
+
+    synchronized (writer) {
+      writer.writeNext(new String[]{"", status.name(), message}, false);
+      writer.flush();
+    }
+  }
+
+  public void flush() throws IOException {
+    if (writer != null) {
+      synchronized (writer) {
+        writer.flush();
+      }
+    }
+  }
+}
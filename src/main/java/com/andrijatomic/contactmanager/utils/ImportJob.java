@@ -0,0 +1,72 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import java.nio.file.Path;
+import java.time.Instant;
+import lombok.Getter;
+
+@Getter
+public class ImportJob {
+
+  public enum Status {
+    QUEUED, RUNNING, COMPLETED, REJECTED, FAILED
+  }
+
+  private final String id;
+  private final Long appUserId;
+  /**
+   * File the rejected rows are written to, null if no error report was requested.
+   */
+  private final Path errorReport;
+  private final Instant submittedAt = Instant.now();
+  private final ImportProgress progress = new ImportProgress();
+
+  private volatile Status status = Status.QUEUED;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  /**
+   * Why the upload was rejected, or a generic message if the import failed. Shown to the client.
+   */
+  private volatile String error;
+  private volatile ImportResultDTO result;
+
+  public ImportJob(String id, Long appUserId) {
+    this(id, appUserId, null);
+  }
+
+  public ImportJob(String id, Long appUserId, Path errorReport) {
+    this.id = id;
+    this.appUserId = appUserId;
+    this.errorReport = errorReport;
+  }
+
+  public void start() {
+    startedAt = Instant.now();
+    status = Status.RUNNING;
+  }
+
+  public void complete(ImportResultDTO result) {
+    this.result = result;
+    finishedAt = Instant.now();
+    status = Status.COMPLETED;
+  }
+
+  /**
+   * The upload broke one of the import limits, {@code reason} tells the client which.
+   */
+  public void reject(String reason) {
+    this.error = reason;
+    finishedAt = Instant.now();
+    status = Status.REJECTED;
+  }
+
+  public void fail(String error) {
+    this.error = error;
+    finishedAt = Instant.now();
+    status = Status.FAILED;
+  }
+
+  public boolean isFinished() {
+    return status == Status.COMPLETED || status == Status.REJECTED || status == Status.FAILED;
+  }
+}
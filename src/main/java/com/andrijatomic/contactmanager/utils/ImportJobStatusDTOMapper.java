@@ -0,0 +1,43 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.ImportJobStatusDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ImportJobStatusDTOMapper implements Function<ImportJob, ImportJobStatusDTO> {
+
+  @Override
+  public ImportJobStatusDTO apply(ImportJob job) {
+    ImportProgress progress = job.getProgress();
+
+    return new ImportJobStatusDTO(
+        job.getId(),
+        job.getStatus().name(),
+        progress.getRowsRead(),
+        progress.getInserted(),
+        progress.getUpdated(),
+        progress.getUnchanged(),
+        progress.getRejected(),
+        rowsPerSecond(job),
+        job.getSubmittedAt(),
+        job.getStartedAt(),
+        job.getFinishedAt(),
+        job.getError(),
+        job.getErrorReport() != null
+    );
+  }
+
+  private static double rowsPerSecond(ImportJob job) {
+    Instant startedAt = job.getStartedAt();
+    if (startedAt == null) {
+      return 0;
+    }
+
+    Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+    long millis = Math.max(Duration.between(startedAt, end).toMillis(), 1);
+    return job.getProgress().getRowsRead() * 1000.0 / millis;
+  }
+}
@@ -0,0 +1,17 @@
+package com.andrijatomic.contactmanager.utils;
+
+public enum ImportMode {
+  /**
+   * JDBC batch inserts, one transaction per chunk.
+   */
+  BATCH,
+  /**
+   * PostgreSQL COPY into a staging table, merged into contacts in a single transaction.
+   */
+  COPY,
+  /**
+   * Like {@link #BATCH}, but rows matching an existing contact of the user by normalized phone
+   * number update that contact instead of being skipped.
+   */
+  UPSERT
+}
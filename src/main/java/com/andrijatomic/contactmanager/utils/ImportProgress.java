@@ -0,0 +1,58 @@
+package com.andrijatomic.contactmanager.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Row counters of a running import, safe to read from other threads while it is updated.
+ */
+public class ImportProgress {
+
+  private final AtomicLong rowsRead = new AtomicLong();
+  private final AtomicLong inserted = new AtomicLong();
+  private final AtomicLong updated = new AtomicLong();
+  private final AtomicLong unchanged = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  public void rowsRead(long count) {
+    rowsRead.addAndGet(count);
+  }
+
+  public void inserted(long count) {
+    inserted.addAndGet(count);
+  }
+
+  public void updated(long count) {
+    updated.addAndGet(count);
+  }
+
+  /**
+   * Valid rows that matched an existing contact and didn't change it.
+   */
+  public void unchanged(long count) {
+    unchanged.addAndGet(count);
+  }
+
+  public void rejected(long count) {
+    rejected.addAndGet(count);
+  }
+
+  public long getRowsRead() {
+    return rowsRead.get();
+  }
+
+  public long getInserted() {
+    return inserted.get();
+  }
+
+  public long getUpdated() {
+    return updated.get();
+  }
+
+  public long getUnchanged() {
+    return unchanged.get();
+  }
+
+  public long getRejected() {
+    return rejected.get();
+  }
+}
@@ -16,7 +16,8 @@ public class PreloadData {
   @Bean
   @ConditionalOnProperty(value = "contactmanager.preload-data",
       havingValue = "true")
-  public CommandLineRunner dataLoader(RoleRepo roleRepo, ContactTypeRepo contactTypeRepo) {
+  public CommandLineRunner dataLoader(RoleRepo roleRepo, ContactTypeRepo contactTypeRepo,
+      ContactTypeRegistry contactTypeRegistry, RoleCatalog roleCatalog) {
     return args -> {
       roleRepo.save(new Role(
           null, TsidCreator.getTsid().toLong(), "ROLE_USER", null));
@@ -30,6 +31,8 @@ public class PreloadData {
           null, TsidCreator.getTsid().toLong(), "Friend", null));
       contactTypeRepo.save(new ContactType(
           null, TsidCreator.getTsid().toLong(), "Work", null));
+      contactTypeRegistry.refresh();
+      roleCatalog.refresh();
     };
   }
 }
@@ -0,0 +1,113 @@
+package com.andrijatomic.contactmanager.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+
+/**
+ * A Thymeleaf template rendered once with a marker in place of every variable and split into
+ * the static text between the markers. Rendering a message only joins the segments with the
+ * escaped values, so the template is neither evaluated nor given a {@link Context} again.
+ *
+ * <p>Only fits templates that print their variables with {@code th:text} or as attribute values.
+ * Conditions or loops over a variable would be decided by the marker at prerendering time.
+ */
+public class PrerenderedTemplate {
+
+  private final List<String> segments;
+  private final List<String> variables;
+
+  private PrerenderedTemplate(List<String> segments, List<String> variables) {
+    this.segments = segments;
+    this.variables = variables;
+  }
+
+  /**
+   * @param paths paths of the variables as returned by {@link #flatten(Map)}
+   */
+  public static PrerenderedTemplate prerender(TemplateEngine templateEngine, String template,
+      Collection<String> paths) {
+
+    // Letters and digits only, so the markers come out of Thymeleaf's escaping unchanged
+    String token = "prerendered" + UUID.randomUUID().toString().replace("-", "");
+    List<String> indexed = List.copyOf(paths);
+
+    Map<String, Object> markers = new HashMap<>();
+    for (int i = 0; i < indexed.size(); i++) {
+      put(markers, indexed.get(i), token + i + "z");
+    }
+
+    Context context = new Context();
+    context.setVariables(markers);
+    String rendered = templateEngine.process(template, context);
+
+    List<String> segments = new ArrayList<>();
+    List<String> variables = new ArrayList<>();
+    Matcher matcher = Pattern.compile(Pattern.quote(token) + "(\\d+)z").matcher(rendered);
+    int start = 0;
+    while (matcher.find()) {
+      segments.add(rendered.substring(start, matcher.start()));
+      variables.add(indexed.get(Integer.parseInt(matcher.group(1))));
+      start = matcher.end();
+    }
+    segments.add(rendered.substring(start));
+
+    return new PrerenderedTemplate(List.copyOf(segments), List.copyOf(variables));
+  }
+
+  /**
+   * Flattens nested variable maps to dotted paths, {@code user.firstName} for the first name of
+   * the {@code user} map. Paths are sorted, so variables of the same shape give equal key sets.
+   */
+  public static Map<String, String> flatten(Map<String, ?> variables) {
+    Map<String, String> flat = new TreeMap<>();
+    flatten("", variables, flat);
+    return flat;
+  }
+
+  /**
+   * @param values values by path, as returned by {@link #flatten(Map)}
+   */
+  public String render(Map<String, String> values) {
+    StringBuilder html = new StringBuilder(segments.get(0));
+    for (int i = 0; i < variables.size(); i++) {
+      html.append(HtmlEscape.escapeHtml4Xml(values.get(variables.get(i))));
+      html.append(segments.get(i + 1));
+    }
+    return html.toString();
+  }
+
+  private static void flatten(String prefix, Map<String, ?> variables, Map<String, String> flat) {
+    for (Map.Entry<String, ?> variable : variables.entrySet()) {
+      String path = prefix + variable.getKey();
+      if (variable.getValue() instanceof Map<?, ?> nested) {
+        @SuppressWarnings("unchecked")
+        Map<String, ?> nestedVariables = (Map<String, ?>) nested;
+        flatten(path + ".", nestedVariables, flat);
+      } else {
+        flat.put(path, variable.getValue() == null ? "" : variable.getValue().toString());
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void put(Map<String, Object> variables, String path, String value) {
+    int dot = path.indexOf('.');
+    if (dot < 0) {
+      variables.put(path, value);
+      return;
+    }
+    Map<String, Object> nested = (Map<String, Object>) variables
+        .computeIfAbsent(path.substring(0, dot), key -> new HashMap<String, Object>());
+    put(nested, path.substring(dot + 1), value);
+  }
+}
@@ -0,0 +1,141 @@
+package com.andrijatomic.contactmanager.utils;
+
+import com.andrijatomic.contactmanager.dtos.AppUserRoleResponseDTO;
+import com.andrijatomic.contactmanager.exceptions.RoleNotFoundException;
+import com.andrijatomic.contactmanager.models.Role;
+import com.andrijatomic.contactmanager.repos.RoleRepo;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the roles table, loaded at startup. Resolved roles are detached
+ * {@link Role} instances that can be set on a user without a query. The application never
+ * writes roles except when it preloads data, which calls {@link #refresh()} afterwards, and
+ * roles changed in the database directly only show up after a restart.
+ */
+@Component
+public class RoleCatalog {
+
+  private final RoleRepo roleRepo;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+  public RoleCatalog(RoleRepo roleRepo) {
+    this.roleRepo = roleRepo;
+  }
+
+  /**
+   * Resolves the role TSIDs of a request. Values that aren't numbers are skipped, like they
+   * always were.
+   *
+   * @throws RoleNotFoundException if a TSID doesn't belong to any role
+   */
+  public List<Role> getByTsids(String[] roleTsids) {
+    Map<Long, Entry> byTsid = snapshot().byTsid();
+    List<Role> roles = new ArrayList<>(roleTsids.length);
+
+    for (String roleTsid : roleTsids) {
+      long tsid;
+      try {
+        tsid = Long.parseLong(roleTsid);
+      } catch (NumberFormatException e) {
+        continue;
+      }
+
+      Entry entry = byTsid.get(tsid);
+      if (entry == null) {
+        throw new RoleNotFoundException(tsid);
+      }
+      roles.add(entry.toRole());
+    }
+    return roles;
+  }
+
+  public List<AppUserRoleResponseDTO> getAll() {
+    return snapshot().all();
+  }
+
+  /**
+   * Strong ETag of {@link #getAll()}, the SHA-256 of the listed roles. It is the same on every
+   * instance holding the same roles and changes with any of them.
+   */
+  public String getETag() {
+    return snapshot().eTag();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void refresh() {
+    snapshot.set(load());
+  }
+
+  private Snapshot snapshot() {
+    Snapshot current = snapshot.get();
+    if (current == null) {
+      current = load();
+      if (!snapshot.compareAndSet(null, current)) {
+        current = snapshot.get();
+      }
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    return Snapshot.of(roleRepo.findAll().stream().map(Entry::of).toList());
+  }
+
+  private record Entry(Long id, Long tsid, String roleName) {
+
+    static Entry of(Role role) {
+      return new Entry(role.getId(), role.getTsid(), role.getRoleName());
+    }
+
+    Role toRole() {
+      return new Role(id, tsid, roleName, new ArrayList<>());
+    }
+  }
+
+  private record Snapshot(Map<Long, Entry> byTsid, List<AppUserRoleResponseDTO> all,
+                          String eTag) {
+
+    static Snapshot of(Collection<Entry> unordered) {
+      List<Entry> entries = unordered.stream().sorted(Comparator.comparing(Entry::id)).toList();
+      List<AppUserRoleResponseDTO> all = entries.stream()
+          .map(entry -> new AppUserRoleResponseDTO(entry.tsid().toString(), entry.roleName()))
+          .toList();
+      return new Snapshot(
+          entries.stream().collect(Collectors.toUnmodifiableMap(Entry::tsid, Function.identity())),
+          all,
+          eTag(all));
+    }
+
+    private static String eTag(List<AppUserRoleResponseDTO> roles) {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+
+      // Every value is terminated by a NUL, so shifting characters between them changes the tag
+      for (AppUserRoleResponseDTO role : roles) {
+        digest.update(role.roleTsid().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(role.roleName().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+      }
+      return "\"roles-" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+  }
+}
@@ -4,7 +4,8 @@ import com.andrijatomic.contactmanager.dtos.UpdateAppUserRequestDTO;
 import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
 import com.andrijatomic.contactmanager.models.AppUser;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
-import com.andrijatomic.contactmanager.repos.RoleRepo;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.CredentialVerificationCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -13,16 +14,18 @@ public class UpdateAppUserRequestDTOMapper {
 
   private final AppUserRepo userRepo;
   private final PasswordEncoder encoder;
-  private final RoleRepo roleRepo;
+  private final RoleCatalog roleCatalog;
+  private final CredentialVerificationCache credentialCache;
 
   public UpdateAppUserRequestDTOMapper(AppUserRepo userRepo, PasswordEncoder encoder,
-      RoleRepo roleRepo) {
+      RoleCatalog roleCatalog, CredentialVerificationCache credentialCache) {
     this.userRepo = userRepo;
     this.encoder = encoder;
-    this.roleRepo = roleRepo;
+    this.roleCatalog = roleCatalog;
+    this.credentialCache = credentialCache;
   }
 
-  public AppUser map(UpdateAppUserRequestDTO requestDTO, AppUser loggedInUser) {
+  public AppUser map(UpdateAppUserRequestDTO requestDTO, AppUserPrincipal loggedInUser) {
 
     AppUser userToBeUpdated;
 
@@ -39,11 +42,13 @@ public class UpdateAppUserRequestDTOMapper {
         }
       }
 
-      userToBeUpdated.setRoles(RoleTsidToRoleConverterUtil
-          .convertToRoles(requestDTO.userRoleTsids(), roleRepo));
+      userToBeUpdated.setRoles(roleCatalog.getByTsids(requestDTO.userRoleTsids()));
+      credentialCache.evict(userToBeUpdated.getTsid());
 
     } else {
-      userToBeUpdated = loggedInUser;
+      userToBeUpdated = userRepo
+          .getAppUserByTsid(loggedInUser.getTsid())
+          .orElseThrow(() -> new AppUserNotFoundException("tsid", loggedInUser.getTsid().toString()));
     }
     return setInitialValues(userToBeUpdated, requestDTO);
   }
@@ -77,6 +82,7 @@ public class UpdateAppUserRequestDTOMapper {
     if (password != null) {
       if (!password.isBlank()) {
         appUserToBeUpdated.setPassword(encoder.encode(password));
+        credentialCache.evict(appUserToBeUpdated.getTsid());
       }
     }
 
@@ -5,7 +5,6 @@ import com.andrijatomic.contactmanager.exceptions.ContactNotFoundException;
 import com.andrijatomic.contactmanager.exceptions.ContactTypeNotFoundException;
 import com.andrijatomic.contactmanager.models.Contact;
 import com.andrijatomic.contactmanager.repos.ContactRepo;
-import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
 import java.util.function.Function;
 import org.springframework.stereotype.Service;
 
@@ -13,11 +12,12 @@ import org.springframework.stereotype.Service;
 public class UpdateContactRequestDTOMapper implements Function<UpdateContactRequestDTO, Contact> {
 
   private final ContactRepo contactRepo;
-  private final ContactTypeRepo contactTypeRepo;
+  private final ContactTypeRegistry contactTypeRegistry;
 
-  public UpdateContactRequestDTOMapper(ContactRepo contactRepo, ContactTypeRepo contactTypeRepo) {
+  public UpdateContactRequestDTOMapper(ContactRepo contactRepo,
+      ContactTypeRegistry contactTypeRegistry) {
     this.contactRepo = contactRepo;
-    this.contactTypeRepo = contactTypeRepo;
+    this.contactTypeRegistry = contactTypeRegistry;
   }
 
   @Override
@@ -31,8 +31,8 @@ public class UpdateContactRequestDTOMapper implements Function<UpdateContactRequ
     contactToBeUpdated.setLastName(updateContactRequestDTO.lastName());
     contactToBeUpdated.setAddress(updateContactRequestDTO.address());
     contactToBeUpdated.setPhoneNumber(updateContactRequestDTO.phoneNumber());
-    contactToBeUpdated.setContactType(contactTypeRepo
-        .getContactTypeByTsid(Long.parseLong(updateContactRequestDTO.contactTypeTsid()))
+    contactToBeUpdated.setContactType(contactTypeRegistry
+        .getByTsid(Long.parseLong(updateContactRequestDTO.contactTypeTsid()))
         .orElseThrow(
             () -> new ContactTypeNotFoundException(updateContactRequestDTO.contactTypeTsid())));
     return contactToBeUpdated;
@@ -0,0 +1,11 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX contacts_first_name_trgm_idx ON contacts
+    USING gin (app_user_id, lower(first_name) gin_trgm_ops);
+CREATE INDEX contacts_last_name_trgm_idx ON contacts
+    USING gin (app_user_id, lower(last_name) gin_trgm_ops);
+CREATE INDEX contacts_address_trgm_idx ON contacts
+    USING gin (app_user_id, lower(address) gin_trgm_ops);
+CREATE INDEX contacts_phone_number_trgm_idx ON contacts
+    USING gin (app_user_id, lower(phone_number) gin_trgm_ops);
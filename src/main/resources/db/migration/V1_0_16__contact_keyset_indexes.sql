@@ -0,0 +1,4 @@
+CREATE INDEX contacts_app_user_first_name_tsid_idx ON contacts (app_user_id, first_name, tsid);
+CREATE INDEX contacts_app_user_last_name_tsid_idx ON contacts (app_user_id, last_name, tsid);
+CREATE INDEX contacts_app_user_address_tsid_idx ON contacts (app_user_id, address, tsid);
+CREATE INDEX contacts_app_user_phone_number_tsid_idx ON contacts (app_user_id, phone_number, tsid);
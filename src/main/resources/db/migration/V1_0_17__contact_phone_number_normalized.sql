@@ -0,0 +1,28 @@
+ALTER TABLE contacts ADD COLUMN phone_number_normalized VARCHAR(15)
+    GENERATED ALWAYS AS (regexp_replace(phone_number, '[^0-9]', '', 'g')) STORED;
+
+-- The unique index below can't be built while duplicates exist. The oldest contact of every user
+-- and normalized phone number is kept, the others are moved here together with the id of the
+-- contact that was kept, so they can be reviewed and merged back by hand.
+CREATE TABLE contacts_duplicates AS
+    SELECT c.id, c.tsid, c.first_name, c.last_name, c.address, c.phone_number,
+           c.contact_type_id, c.app_user_id, kept.id AS kept_contact_id,
+           now() AS archived_at
+    FROM contacts c
+    JOIN LATERAL (SELECT min(older.id) AS id
+                  FROM contacts older
+                  WHERE older.app_user_id = c.app_user_id
+                    AND older.phone_number_normalized = c.phone_number_normalized) kept
+        ON kept.id < c.id;
+
+ALTER TABLE contacts_duplicates ADD PRIMARY KEY (id);
+ALTER TABLE contacts_duplicates ADD FOREIGN KEY (app_user_id)
+    REFERENCES users (id)
+    ON DELETE CASCADE;
+
+DELETE FROM contacts c
+    USING contacts_duplicates d
+    WHERE d.id = c.id;
+
+CREATE UNIQUE INDEX contacts_app_user_phone_number_normalized_key
+    ON contacts (app_user_id, phone_number_normalized);
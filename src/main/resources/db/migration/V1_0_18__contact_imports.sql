@@ -0,0 +1,14 @@
+CREATE TABLE contact_imports(
+    id BIGSERIAL PRIMARY KEY,
+    app_user_id BIGINT NOT NULL REFERENCES "app-db".users (id) ON DELETE CASCADE,
+    content_hash VARCHAR(64) NOT NULL,
+    mode VARCHAR(10) NOT NULL,
+    imported INTEGER NOT NULL,
+    updated INTEGER NOT NULL,
+    unchanged INTEGER NOT NULL,
+    errored INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX contact_imports_app_user_content_hash_idx
+    ON contact_imports (app_user_id, content_hash, created_at);
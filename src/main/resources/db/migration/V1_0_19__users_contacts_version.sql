@@ -0,0 +1,60 @@
+ALTER TABLE users ADD COLUMN contacts_version BIGINT NOT NULL DEFAULT 0;
+
+-- Bumped once per statement and user, so a bulk import costs one update of the user row per
+-- statement instead of one per contact.
+--
+-- The update locks the user row until the writing transaction ends. Concurrent writes to the
+-- contacts of the same user therefore commit one after another, and so do updates of the user
+-- itself while a contact write is open. Writes of different users don't touch the same row. This
+-- is accepted: a user's contacts are written by that user alone, and an import holds the lock for
+-- one chunk or one COPY at most. If that stops being true, the version has to move to an
+-- insert-only table read with max(), which nothing else locks.
+CREATE FUNCTION bump_contacts_version_inserted() RETURNS trigger AS $$
+BEGIN
+    UPDATE users SET contacts_version = contacts_version + 1
+    WHERE id IN (SELECT DISTINCT app_user_id FROM new_contacts);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION bump_contacts_version_updated() RETURNS trigger AS $$
+BEGIN
+    UPDATE users SET contacts_version = contacts_version + 1
+    WHERE id IN (SELECT app_user_id FROM new_contacts UNION SELECT app_user_id FROM old_contacts);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION bump_contacts_version_deleted() RETURNS trigger AS $$
+BEGIN
+    UPDATE users SET contacts_version = contacts_version + 1
+    WHERE id IN (SELECT DISTINCT app_user_id FROM old_contacts);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER contacts_version_on_insert AFTER INSERT ON contacts
+    REFERENCING NEW TABLE AS new_contacts
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_contacts_version_inserted();
+
+CREATE TRIGGER contacts_version_on_update AFTER UPDATE ON contacts
+    REFERENCING OLD TABLE AS old_contacts NEW TABLE AS new_contacts
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_contacts_version_updated();
+
+CREATE TRIGGER contacts_version_on_delete AFTER DELETE ON contacts
+    REFERENCING OLD TABLE AS old_contacts
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_contacts_version_deleted();
+
+-- Exports contain the type name, renaming a type changes the exports of everyone using it
+CREATE FUNCTION bump_contacts_version_type_updated() RETURNS trigger AS $$
+BEGIN
+    UPDATE users SET contacts_version = contacts_version + 1
+    WHERE id IN (SELECT DISTINCT c.app_user_id FROM contacts c
+                 JOIN new_contact_types t ON t.id = c.contact_type_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER contacts_version_on_type_update AFTER UPDATE ON contact_types
+    REFERENCING NEW TABLE AS new_contact_types
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_contacts_version_type_updated();
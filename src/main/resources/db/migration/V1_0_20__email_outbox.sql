@@ -0,0 +1,17 @@
+CREATE TABLE email_outbox(
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    template VARCHAR(255) NOT NULL,
+    variables TEXT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL,
+    sent_at TIMESTAMP,
+    failed_at TIMESTAMP
+);
+
+-- Only the mails still waiting to be sent are ever polled
+CREATE INDEX email_outbox_pending_idx ON email_outbox (next_attempt_at)
+    WHERE sent_at IS NULL AND failed_at IS NULL;
@@ -0,0 +1,17 @@
+ALTER TABLE users ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
+
+-- Refresh tokens carry the version they were issued with, bumping it revokes all of them. Done
+-- here so that every path changing the password or disabling the user is covered.
+CREATE FUNCTION bump_token_version() RETURNS trigger AS $$
+BEGIN
+    NEW.token_version := OLD.token_version + 1;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER token_version_on_credentials_update BEFORE UPDATE OF password, is_enabled
+    ON users
+    FOR EACH ROW
+    WHEN (OLD.password IS DISTINCT FROM NEW.password
+        OR OLD.is_enabled IS DISTINCT FROM NEW.is_enabled)
+    EXECUTE FUNCTION bump_token_version();
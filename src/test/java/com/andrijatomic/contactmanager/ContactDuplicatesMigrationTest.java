@@ -0,0 +1,77 @@
+package com.andrijatomic.contactmanager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Runs the migration that makes the normalized phone number unique against a database that still
+ * holds duplicates. It gets a database of its own in the shared container, migrated only up to
+ * the version before.
+ */
+class ContactDuplicatesMigrationTest extends PostgresTestSupport {
+
+  private static final String DATABASE = "contact_duplicates_migration";
+
+  @Test
+  void duplicatesAreArchivedBeforeTheyAreDeleted() {
+    jdbcTemplate.execute("CREATE DATABASE " + DATABASE);
+
+    try (HikariDataSource database = dataSource(DATABASE)) {
+      JdbcTemplate contacts = new JdbcTemplate(database);
+
+      // given
+      migrate(database, "1.0.16");
+      contacts.update("INSERT INTO contacts (id, tsid, first_name, last_name, address,"
+          + " phone_number, app_user_id) VALUES"
+          + " (1, 1, 'John', 'Doe', 'Address 1', '+381654987878', 1),"
+          + " (2, 2, 'John', 'Doe', 'Address 2', '+381-654987878', 1),"
+          + " (3, 3, 'John', 'Doe', 'Address 3', '381 654 987 878', 1),"
+          + " (4, 4, 'John', 'Doe', 'Address 4', '+381654987878', 2),"
+          + " (5, 5, 'Jane', 'Doe', 'Address 5', '+381654987879', 1)");
+
+      // when
+      migrate(database, "latest");
+
+      // then
+      assertThat(contacts.queryForList("SELECT id FROM contacts ORDER BY id", Long.class))
+          .containsExactly(1L, 4L, 5L);
+      assertThat(contacts.queryForList("SELECT id, address, phone_number, kept_contact_id"
+          + " FROM contacts_duplicates ORDER BY id"))
+          .extracting(row -> List.of(row.get("id"), row.get("address"), row.get("phone_number"),
+              row.get("kept_contact_id")))
+          .containsExactly(
+              List.of(2L, "Address 2", "+381-654987878", 1L),
+              List.of(3L, "Address 3", "381 654 987 878", 1L));
+      assertEquals(5, contacts.queryForObject("SELECT (SELECT count(*) FROM contacts)"
+          + " + (SELECT count(*) FROM contacts_duplicates)", Long.class));
+    }
+  }
+
+  private static HikariDataSource dataSource(String database) {
+    PostgreSQLContainer<?> postgres = postgres();
+
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:postgresql://" + postgres.getHost() + ":"
+        + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + database);
+    dataSource.setUsername(postgres.getUsername());
+    dataSource.setPassword(postgres.getPassword());
+    dataSource.setConnectionInitSql("SET search_path TO \"" + SCHEMA + "\"");
+    return dataSource;
+  }
+
+  private static void migrate(HikariDataSource dataSource, String target) {
+    Flyway.configure()
+        .dataSource(dataSource)
+        .schemas(SCHEMA)
+        .target(target)
+        .load()
+        .migrate();
+  }
+}
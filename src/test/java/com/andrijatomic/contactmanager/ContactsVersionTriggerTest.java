@@ -0,0 +1,103 @@
+package com.andrijatomic.contactmanager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the triggers bump the contacts version once per statement and user, which is what
+ * invalidates the cached exports.
+ */
+class ContactsVersionTriggerTest extends PostgresTestSupport {
+
+  private static long nextTsid = 19000;
+
+  private Long appUserId;
+  private Long otherAppUserId;
+
+  @BeforeEach
+  void setUp() {
+    appUserId = insertUser(nextTsid++);
+    otherAppUserId = insertUser(nextTsid++);
+  }
+
+  @Test
+  void multiRowInsertBumpsVersionOnce() {
+
+    // when
+    insertContacts(appUserId, 3, null);
+
+    // then
+    assertEquals(1, contactsVersion(appUserId));
+    assertEquals(0, contactsVersion(otherAppUserId));
+  }
+
+  @Test
+  void updateBumpsVersionOfEveryUserItTouches() {
+
+    // given
+    insertContacts(appUserId, 2, null);
+    insertContacts(otherAppUserId, 2, null);
+
+    // when
+    jdbcTemplate.update("UPDATE contacts SET address = 'New Address'"
+        + " WHERE app_user_id IN (?, ?)", appUserId, otherAppUserId);
+
+    // then
+    assertEquals(2, contactsVersion(appUserId));
+    assertEquals(2, contactsVersion(otherAppUserId));
+  }
+
+  @Test
+  void deleteBumpsVersion() {
+
+    // given
+    insertContacts(appUserId, 2, null);
+
+    // when
+    jdbcTemplate.update("DELETE FROM contacts WHERE app_user_id = ?", appUserId);
+
+    // then
+    assertEquals(2, contactsVersion(appUserId));
+  }
+
+  @Test
+  void statementWithoutRowsLeavesVersion() {
+
+    // when
+    jdbcTemplate.update("DELETE FROM contacts WHERE app_user_id = ?", appUserId);
+
+    // then
+    assertEquals(0, contactsVersion(appUserId));
+  }
+
+  @Test
+  void renamingContactTypeBumpsVersionOfUsersWithContactsOfThatType() {
+
+    // given
+    Long contactTypeId = contactTypeId("Trigger");
+    insertContacts(appUserId, 1, contactTypeId);
+    insertContacts(otherAppUserId, 1, null);
+
+    // when
+    jdbcTemplate.update("UPDATE contact_types SET type = 'Renamed' WHERE id = ?", contactTypeId);
+
+    // then
+    assertEquals(2, contactsVersion(appUserId));
+    assertEquals(1, contactsVersion(otherAppUserId));
+  }
+
+  private static void insertContacts(Long appUserId, int count, Long contactTypeId) {
+    jdbcTemplate.update("INSERT INTO contacts (tsid, first_name, last_name, address,"
+        + " phone_number, contact_type_id, app_user_id) SELECT ? * 100 + n, 'First', 'Last',"
+        + " 'Address', '+381' || (? * 100 + n), CAST(? AS BIGINT), ?"
+        + " FROM generate_series(1, ?) AS n",
+        appUserId, appUserId, contactTypeId, appUserId, count);
+  }
+
+  private static long contactsVersion(Long appUserId) {
+    return jdbcTemplate.queryForObject("SELECT contacts_version FROM users WHERE id = ?",
+        Long.class, appUserId);
+  }
+}
@@ -0,0 +1,94 @@
+package com.andrijatomic.contactmanager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base of the tests that run statements against the real schema. All of them share one Postgres
+ * container, migrated once when the first of them starts and stopped with the JVM. The data is
+ * shared too, so every test works with users of its own, created with {@link #insertUser}.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresTestSupport {
+
+  protected static final String SCHEMA = "app-db";
+
+  private static PostgreSQLContainer<?> postgres;
+
+  protected static HikariDataSource dataSource;
+  protected static JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  static void startPostgres() {
+    postgres();
+  }
+
+  /**
+   * Returns the shared container, starting and migrating it on the first call.
+   */
+  protected static synchronized PostgreSQLContainer<?> postgres() {
+    if (postgres == null) {
+      PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:15");
+      container.start();
+
+      Flyway.configure()
+          .dataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword())
+          .schemas(SCHEMA)
+          .load()
+          .migrate();
+
+      dataSource = new HikariDataSource();
+      dataSource.setJdbcUrl(container.getJdbcUrl());
+      dataSource.setUsername(container.getUsername());
+      dataSource.setPassword(container.getPassword());
+      dataSource.setConnectionInitSql("SET search_path TO \"" + SCHEMA + "\"");
+      jdbcTemplate = new JdbcTemplate(dataSource);
+
+      postgres = container;
+    }
+    return postgres;
+  }
+
+  /**
+   * Points the datasource of a Spring test context at the shared container.
+   */
+  protected static void registerDataSource(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", () -> postgres().getJdbcUrl());
+    registry.add("spring.datasource.username", () -> postgres().getUsername());
+    registry.add("spring.datasource.password", () -> postgres().getPassword());
+    registry.add("spring.datasource.hikari.connection-init-sql",
+        () -> "SET search_path TO \"" + SCHEMA + "\"");
+    registry.add("spring.flyway.schemas", () -> SCHEMA);
+    registry.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+  }
+
+  /**
+   * Inserts a user without roles and returns its id. The tsid is also used in the email, so it
+   * has to be unique across the tests.
+   */
+  protected static Long insertUser(long tsid) {
+    return jdbcTemplate.queryForObject("INSERT INTO users (email, password, first_name,"
+        + " last_name, tsid) VALUES (?, 'password', 'First', 'Last', ?) RETURNING id", Long.class,
+        "user" + tsid + "@gmail.com", tsid);
+  }
+
+  /**
+   * Returns the id of the contact type, inserting it the first time it is asked for.
+   */
+  protected static Long contactTypeId(String type) {
+    List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM contact_types WHERE type = ?",
+        Long.class, type);
+    if (!ids.isEmpty()) {
+      return ids.get(0);
+    }
+    return jdbcTemplate.queryForObject("INSERT INTO contact_types (type, tsid)"
+        + " VALUES (?, (SELECT coalesce(max(tsid), 0) + 1 FROM contact_types)) RETURNING id",
+        Long.class, type);
+  }
+}
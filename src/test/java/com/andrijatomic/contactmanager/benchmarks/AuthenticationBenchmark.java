@@ -0,0 +1,84 @@
+package com.andrijatomic.contactmanager.benchmarks;
+
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.security.JwtService;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Compares how many requests per second a single thread can authenticate with HTTP Basic
+ * (BCrypt check on every request) and with a JWT access token. The user lookup is served from
+ * memory in both cases, so only the credential check itself is measured.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.andrijatomic.contactmanager.benchmarks.AuthenticationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationBenchmark {
+
+  private static final String EMAIL = "regularuser1@gmail.com";
+  private static final String PASSWORD = "regularuser12345";
+
+  private DaoAuthenticationProvider httpBasicProvider;
+  private JwtService jwtService;
+  private String accessToken;
+
+  @Setup
+  public void setUp() {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    AppUserPrincipal principal = new AppUserPrincipal(1L, 454165907150024959L, EMAIL,
+        encoder.encode(PASSWORD), true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    httpBasicProvider = new DaoAuthenticationProvider();
+    httpBasicProvider.setUserDetailsService(username -> principal);
+    httpBasicProvider.setPasswordEncoder(encoder);
+
+    String secret = Encoders.BASE64
+        .encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    jwtService = new JwtService(secret, 15, 7);
+    accessToken = jwtService.createAccessToken(principal);
+  }
+
+  @Benchmark
+  public Authentication httpBasic() {
+    return httpBasicProvider
+        .authenticate(UsernamePasswordAuthenticationToken.unauthenticated(EMAIL, PASSWORD));
+  }
+
+  @Benchmark
+  public AppUserPrincipal jwtBearer() {
+    return jwtService.parseAccessToken(accessToken);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(AuthenticationBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
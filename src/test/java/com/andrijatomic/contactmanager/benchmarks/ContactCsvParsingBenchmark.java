@@ -0,0 +1,106 @@
+package com.andrijatomic.contactmanager.benchmarks;
+
+import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
+import com.andrijatomic.contactmanager.utils.ContactCsvParser;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator;
+import com.opencsv.bean.CsvToBean;
+import com.opencsv.bean.CsvToBeanBuilder;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading and validating a contact CSV with opencsv and Bean Validation, as the import
+ * used to, against {@link ContactCsvParser} and {@link ContactCsvValidator}. Every tenth row is
+ * invalid so the failure path is part of the measurement. Add {@code -prof gc} to the JMH
+ * arguments to compare allocation per operation as well.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.andrijatomic.contactmanager.benchmarks.ContactCsvParsingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContactCsvParsingBenchmark {
+
+  @Param({"10000"})
+  private int rows;
+
+  private String csv;
+  private Validator beanValidator;
+  private ContactCsvValidator csvValidator;
+
+  @Setup
+  public void setUp() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < rows; i++) {
+      String firstName = i % 10 == 0 ? "Not Valid" : "John";
+      builder.append(firstName).append(",Doe,+3816549")
+          .append(String.format("%06d", i)).append(",\"Some Address ").append(i)
+          .append("\",Friend\n");
+    }
+    csv = builder.toString();
+
+    beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    csvValidator = new ContactCsvValidator();
+  }
+
+  @Benchmark
+  public int opencsv(Blackhole blackhole) {
+    CsvToBean<AddContactCsvDTO> csvToBean = new CsvToBeanBuilder<AddContactCsvDTO>(
+        new StringReader(csv))
+        .withType(AddContactCsvDTO.class)
+        .withIgnoreLeadingWhiteSpace(true)
+        .build();
+
+    int valid = 0;
+    for (AddContactCsvDTO row : csvToBean) {
+      if (beanValidator.validate(row).isEmpty()) {
+        valid++;
+      }
+      blackhole.consume(row);
+    }
+    return valid;
+  }
+
+  @Benchmark
+  public int contactCsvParser(Blackhole blackhole) throws IOException {
+    ContactCsvParser parser = new ContactCsvParser(new StringReader(csv));
+
+    int valid = 0;
+    AddContactCsvDTO row;
+    while ((row = parser.next()) != null) {
+      if (csvValidator.isValid(row)) {
+        valid++;
+      }
+      blackhole.consume(row);
+    }
+    return valid;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ContactCsvParsingBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,109 @@
+package com.andrijatomic.contactmanager.benchmarks;
+
+import com.andrijatomic.contactmanager.utils.PrerenderedTemplate;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Compares how many verification mails per second a single thread can build when the template
+ * is processed for every mail, the way the mails used to be rendered, and when it is prerendered
+ * once and only the name and link are filled in. Both build the {@link MimeMessage}, nothing is
+ * sent.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.andrijatomic.contactmanager.benchmarks.VerificationMailRenderingBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificationMailRenderingBenchmark {
+
+  private static final String TEMPLATE = "verification/verifymail";
+  private static final String FROM = "noreply@gmail.com";
+  private static final String TO = "regularuser1@gmail.com";
+
+  private SpringTemplateEngine templateEngine;
+  private JavaMailSenderImpl mailSender;
+  private InternetAddress fromAddress;
+  private PrerenderedTemplate prerendered;
+  private int counter;
+
+  @Setup
+  public void setUp() throws MessagingException {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("templates/");
+    templateResolver.setSuffix(".html");
+    templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+
+    mailSender = new JavaMailSenderImpl();
+    fromAddress = new InternetAddress(FROM);
+    prerendered = PrerenderedTemplate.prerender(templateEngine, TEMPLATE,
+        PrerenderedTemplate.flatten(variables()).keySet());
+  }
+
+  @Benchmark
+  public MimeMessage templateEngine() throws MessagingException {
+    Context context = new Context();
+    context.setVariables(variables());
+
+    MimeMessage mimeMessage = mailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(mimeMessage);
+    helper.setFrom(FROM);
+    helper.setSubject("Verify mail");
+    helper.setText(templateEngine.process(TEMPLATE, context), true);
+    helper.setTo(TO);
+    return mimeMessage;
+  }
+
+  @Benchmark
+  public MimeMessage prerendered() throws MessagingException {
+    Map<String, String> values = PrerenderedTemplate.flatten(variables());
+
+    MimeMessage mimeMessage = mailSender.createMimeMessage();
+    mimeMessage.setFrom(fromAddress);
+    mimeMessage.setRecipients(Message.RecipientType.TO, InternetAddress.parse(TO));
+    mimeMessage.setSubject("Verify mail", StandardCharsets.UTF_8.name());
+    mimeMessage.setText(prerendered.render(values), StandardCharsets.UTF_8.name(), "html");
+    return mimeMessage;
+  }
+
+  private Map<String, Object> variables() {
+    int n = counter++;
+    return Map.of(
+        "user", Map.of("firstName", "User" + n),
+        "verification", "http://localhost:8080/verification/verify/" + n);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(VerificationMailRenderingBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,124 @@
+package com.andrijatomic.contactmanager.repos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.andrijatomic.contactmanager.utils.ContactSortUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Checks that the search queries in {@link ContactRepo} are served by the trigram indexes. The
+ * statement Hibernate sends for the repository method is captured and explained with the same
+ * parameters, against a user with enough contacts that scanning them would cost more than the
+ * index, and a pattern that only few of them match.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ContactSearchIndexTest extends PostgresTestSupport {
+
+  private static final int CONTACTS = 20000;
+  private static final int SEARCHED_CONTACT = 12345;
+  private static final Pageable PAGE = PageRequest.of(0, 10, ContactSortUtil.sortBy("firstName"));
+
+  private static Long appUserId;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registerDataSource(registry);
+    registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+        StatementRecorder.class::getName);
+  }
+
+  @BeforeAll
+  static void seed() {
+    appUserId = insertUser(5000000);
+    Long otherAppUserId = insertUser(5000001);
+
+    for (Long userId : List.of(appUserId, otherAppUserId)) {
+      jdbcTemplate.update("INSERT INTO contacts (tsid, first_name, last_name, address,"
+          + " phone_number, app_user_id) SELECT ? * 100000 + n,"
+          + " 'F' || substr(md5('f' || n), 1, 12), 'L' || substr(md5('l' || n), 1, 12),"
+          + " 'Street ' || substr(md5('a' || n), 1, 12),"
+          + " '+381' || lpad(n::text, 9, '0'), ? FROM generate_series(1, ?) AS n",
+          userId, userId, CONTACTS);
+    }
+    jdbcTemplate.execute("ANALYZE contacts");
+  }
+
+  @Autowired
+  private ContactRepo contactRepo;
+
+  @BeforeEach
+  void clearRecordedStatements() {
+    StatementRecorder.statements.clear();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "first_name, contacts_first_name_trgm_idx",
+      "last_name, contacts_last_name_trgm_idx",
+      "address, contacts_address_trgm_idx",
+      "phone_number, contacts_phone_number_trgm_idx"
+  })
+  void searchUsesTrigramIndex(String column, String index) {
+
+    // given
+    String value = jdbcTemplate.queryForObject("SELECT " + column + " FROM contacts"
+        + " WHERE app_user_id = ? AND tsid = ?", String.class, appUserId,
+        appUserId * 100000 + SEARCHED_CONTACT);
+    String pattern = "%" + value.substring(value.length() - 8).toLowerCase() + "%";
+
+    // when
+    switch (column) {
+      case "first_name" -> contactRepo.searchByFirstName(appUserId, pattern, PAGE);
+      case "last_name" -> contactRepo.searchByLastName(appUserId, pattern, PAGE);
+      case "address" -> contactRepo.searchByAddress(appUserId, pattern, PAGE);
+      default -> contactRepo.searchByPhoneNumber(appUserId, pattern, PAGE);
+    }
+
+    // then
+    String query = StatementRecorder.statements.stream()
+        .filter(statement -> !statement.startsWith("select count("))
+        .findFirst()
+        .orElseThrow();
+    assertThat(explain(query, pattern)).anyMatch(line -> line.contains(index));
+  }
+
+  /**
+   * Binds the user and the pattern, then the offset if Hibernate rendered one, then the limit.
+   */
+  private static List<String> explain(String query, String pattern) {
+    List<Object> parameters = new ArrayList<>(List.of(appUserId, pattern));
+    if (query.contains("offset ?")) {
+      parameters.add(PAGE.getOffset());
+    }
+    parameters.add(PAGE.getPageSize());
+
+    return jdbcTemplate.queryForList("EXPLAIN " + query, String.class, parameters.toArray());
+  }
+
+  public static class StatementRecorder implements StatementInspector {
+
+    static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql);
+      return sql;
+    }
+  }
+}
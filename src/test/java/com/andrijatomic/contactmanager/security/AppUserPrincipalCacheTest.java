@@ -0,0 +1,60 @@
+package com.andrijatomic.contactmanager.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class AppUserPrincipalCacheTest {
+
+  private final AppUserPrincipalCache underTest = new AppUserPrincipalCache(300, 100);
+  private final AtomicInteger loads = new AtomicInteger();
+  private final Function<String, AppUserPrincipal> loader = email -> {
+    loads.incrementAndGet();
+    return new AppUserPrincipal(1L, 11L, email, "password", true, List.of());
+  };
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void evictsRightAwayWithoutTransaction() {
+
+    // given
+    underTest.get("johndoe@gmail.com", loader);
+
+    // when
+    underTest.evict(11L);
+
+    // then
+    underTest.get("johndoe@gmail.com", loader);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void evictsAgainOnceTheTransactionCommits() {
+
+    // given
+    underTest.get("johndoe@gmail.com", loader);
+    TransactionSynchronizationManager.initSynchronization();
+
+    // when
+    underTest.evict(11L);
+    underTest.get("johndoe@gmail.com", loader);
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+
+    // then
+    underTest.get("johndoe@gmail.com", loader);
+    assertEquals(3, loads.get());
+  }
+}
@@ -0,0 +1,139 @@
+package com.andrijatomic.contactmanager.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationProviderTest {
+
+  private static final String EMAIL = "johndoe@gmail.com";
+  private static final AppUserPrincipal PRINCIPAL = new AppUserPrincipal(1L, 11L, EMAIL,
+      "$2a$10$hash", true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+  @Mock
+  private AuthenticationProvider delegate;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CredentialVerificationCache credentialCache;
+  private CachingAuthenticationProvider underTest;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    credentialCache = new CredentialVerificationCache(30, 100, meterRegistry);
+    underTest = new CachingAuthenticationProvider(delegate, credentialCache);
+
+    // Stands in for the BCrypt check of the DAO provider
+    when(delegate.authenticate(any(Authentication.class))).thenAnswer(invocation -> {
+      Authentication authentication = invocation.getArgument(0);
+      if (!"password".equals(authentication.getCredentials())) {
+        throw new BadCredentialsException("Bad credentials");
+      }
+      return UsernamePasswordAuthenticationToken
+          .authenticated(PRINCIPAL, null, PRINCIPAL.getAuthorities());
+    });
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void repeatedCorrectPasswordIsServedFromTheCache() {
+
+    // given
+    underTest.authenticate(token("password"));
+
+    // when
+    Authentication result = underTest.authenticate(token("password"));
+
+    // then
+    assertSame(PRINCIPAL, result.getPrincipal());
+    assertEquals(PRINCIPAL.getAuthorities(), List.copyOf(result.getAuthorities()));
+    verify(delegate, times(1)).authenticate(any(Authentication.class));
+    assertEquals(1, count("hit"));
+    assertEquals(1, count("miss"));
+  }
+
+  @Test
+  void wrongPasswordOfACachedUserIsCheckedByTheDelegate() {
+
+    // given
+    underTest.authenticate(token("password"));
+
+    // when
+    assertThrows(BadCredentialsException.class, () -> underTest.authenticate(token("wrong")));
+
+    // then
+    verify(delegate, times(2)).authenticate(any(Authentication.class));
+    assertEquals(0, count("hit"));
+    assertEquals(2, count("miss"));
+  }
+
+  @Test
+  void evictionWithoutTransactionForcesVerification() {
+
+    // given
+    underTest.authenticate(token("password"));
+
+    // when
+    credentialCache.evict(PRINCIPAL.getTsid());
+    underTest.authenticate(token("password"));
+
+    // then
+    verify(delegate, times(2)).authenticate(any(Authentication.class));
+  }
+
+  @Test
+  void evictionInTransactionForcesVerificationBeforeAndAfterTheCommit() {
+
+    // given
+    underTest.authenticate(token("password"));
+    TransactionSynchronizationManager.initSynchronization();
+
+    // when
+    credentialCache.evict(PRINCIPAL.getTsid());
+    underTest.authenticate(token("password"));
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    underTest.authenticate(token("password"));
+
+    // then
+    verify(delegate, times(3)).authenticate(any(Authentication.class));
+  }
+
+  private static Authentication token(String password) {
+    return UsernamePasswordAuthenticationToken.unauthenticated(EMAIL, password);
+  }
+
+  private double count(String result) {
+    return meterRegistry.get("contactmanager.security.credential.cache")
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+}
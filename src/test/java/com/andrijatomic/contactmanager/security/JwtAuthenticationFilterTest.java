@@ -0,0 +1,112 @@
+package com.andrijatomic.contactmanager.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class JwtAuthenticationFilterTest {
+
+  private final AppUserPrincipal principal = new AppUserPrincipal(1L, 2L, "johndoe@gmail.com",
+      null, true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+  private JwtService jwtService;
+  private JwtAuthenticationFilter underTest;
+
+  @BeforeEach
+  void setUp() {
+    jwtService = new JwtService(Base64.getEncoder().encodeToString(
+        "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8)), 15, 7);
+    underTest = new JwtAuthenticationFilter(jwtService);
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void validAccessTokenAuthenticatesRequest() throws ServletException, IOException {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION,
+        "Bearer " + jwtService.createAccessToken(principal));
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    // then
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    assertEquals(principal, authentication.getPrincipal());
+    assertThat(authentication.isAuthenticated()).isTrue();
+    assertThat(filterChain.getRequest()).isSameAs(request);
+  }
+
+  @Test
+  void missingHeaderLeavesRequestUnauthenticated() throws ServletException, IOException {
+
+    // given
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    underTest.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), filterChain);
+
+    // then
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    assertThat(filterChain.getRequest()).isNotNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Bearer", "Bearer ", "Bearer not.a.token", "Basic am9objpkb2U=",
+      "bearer eyJhbGciOiJIUzI1NiJ9.e30.c2lnbmF0dXJl"})
+  void malformedHeaderLeavesRequestUnauthenticated(String header)
+      throws ServletException, IOException {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION, header);
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    // then
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    assertThat(filterChain.getRequest()).isSameAs(request);
+  }
+
+  @Test
+  void refreshTokenDoesNotAuthenticateRequest() throws ServletException, IOException {
+
+    // given
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(HttpHeaders.AUTHORIZATION,
+        "Bearer " + jwtService.createRefreshToken(principal, 0));
+    MockFilterChain filterChain = new MockFilterChain();
+
+    // when
+    underTest.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+    // then
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    assertThat(filterChain.getRequest()).isSameAs(request);
+  }
+}
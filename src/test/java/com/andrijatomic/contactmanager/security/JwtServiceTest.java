@@ -0,0 +1,163 @@
+package com.andrijatomic.contactmanager.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.andrijatomic.contactmanager.security.JwtService.RefreshToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+class JwtServiceTest {
+
+  private static final byte[] SECRET = "0123456789abcdef0123456789abcdef"
+      .getBytes(StandardCharsets.UTF_8);
+
+  private final AppUserPrincipal principal = new AppUserPrincipal(1L, 2L, "johndoe@gmail.com",
+      null, true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+  private JwtService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new JwtService(Base64.getEncoder().encodeToString(SECRET), 15, 7);
+  }
+
+  @Test
+  void accessTokenRoundTrips() {
+
+    // when
+    AppUserPrincipal parsed = underTest.parseAccessToken(underTest.createAccessToken(principal));
+
+    // then
+    assertEquals(principal, parsed);
+  }
+
+  @Test
+  void refreshTokenCarriesTokenVersion() {
+
+    // when
+    RefreshToken parsed = underTest.parseRefreshToken(underTest.createRefreshToken(principal, 3));
+
+    // then
+    assertEquals(new RefreshToken("johndoe@gmail.com", 3), parsed);
+  }
+
+  @Test
+  void expiredAccessTokenIsRejected() {
+
+    // given
+    Instant issuedAt = Instant.now().minus(Duration.ofHours(1));
+    String token = Jwts.builder()
+        .setSubject("johndoe@gmail.com")
+        .claim("uid", "1")
+        .claim("tsid", "2")
+        .claim("roles", List.of("ROLE_USER"))
+        .claim("typ", "access")
+        .setIssuedAt(Date.from(issuedAt))
+        .setExpiration(Date.from(issuedAt.plus(Duration.ofMinutes(15))))
+        .signWith(Keys.hmacShaKeyFor(SECRET), SignatureAlgorithm.HS256)
+        .compact();
+
+    // when
+    // then
+    assertThrows(ExpiredJwtException.class, () -> underTest.parseAccessToken(token));
+  }
+
+  @Test
+  void tamperedSignatureIsRejected() {
+
+    // given
+    String token = underTest.createAccessToken(principal);
+    int signature = token.lastIndexOf('.') + 1;
+    String tampered = token.substring(0, signature)
+        + (token.charAt(signature) == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+
+    // when
+    // then
+    assertThrows(SignatureException.class, () -> underTest.parseAccessToken(tampered));
+  }
+
+  @Test
+  void tokenSignedWithAnotherKeyIsRejected() {
+
+    // given
+    String token = new JwtService("", 15, 7).createAccessToken(principal);
+
+    // when
+    // then
+    assertThrows(SignatureException.class, () -> underTest.parseAccessToken(token));
+  }
+
+  @Test
+  void tokenOfUnknownTypeIsRejected() {
+
+    // given
+    String token = Jwts.builder()
+        .setSubject("johndoe@gmail.com")
+        .claim("typ", "id")
+        .setExpiration(Date.from(Instant.now().plus(Duration.ofMinutes(15))))
+        .signWith(Keys.hmacShaKeyFor(SECRET), SignatureAlgorithm.HS256)
+        .compact();
+
+    // when
+    // then
+    assertThrows(JwtException.class, () -> underTest.parseAccessToken(token));
+    assertThrows(JwtException.class, () -> underTest.parseRefreshToken(token));
+  }
+
+  @Test
+  void refreshTokenIsNotAnAccessToken() {
+
+    // given
+    String refreshToken = underTest.createRefreshToken(principal, 0);
+
+    // when
+    // then
+    assertThrows(JwtException.class, () -> underTest.parseAccessToken(refreshToken));
+  }
+
+  @Test
+  void accessTokenIsNotARefreshToken() {
+
+    // given
+    String accessToken = underTest.createAccessToken(principal);
+
+    // when
+    // then
+    assertThrows(JwtException.class, () -> underTest.parseRefreshToken(accessToken));
+  }
+
+  @Test
+  void refreshTokenWithoutVersionIsRejected() {
+
+    // given
+    String token = Jwts.builder()
+        .setSubject("johndoe@gmail.com")
+        .claim("typ", "refresh")
+        .setExpiration(Date.from(Instant.now().plus(Duration.ofDays(7))))
+        .signWith(Keys.hmacShaKeyFor(SECRET), SignatureAlgorithm.HS256)
+        .compact();
+
+    // when
+    // then
+    assertThrows(JwtException.class, () -> underTest.parseRefreshToken(token));
+  }
+
+  @Test
+  void malformedTokenIsRejected() {
+    assertThrows(JwtException.class, () -> underTest.parseAccessToken("not.a.token"));
+  }
+}
@@ -0,0 +1,61 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.andrijatomic.contactmanager.dtos.AppUserDeletionResultDTO;
+import com.andrijatomic.contactmanager.exceptions.AppUserNotFoundException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Runs the deletion statements against the real schema, with a batch size that doesn't divide
+ * the number of contacts.
+ */
+class AppUserDeletionServiceTest extends PostgresTestSupport {
+
+  private static AppUserDeletionService underTest;
+
+  @BeforeAll
+  static void setUp() {
+    underTest = new AppUserDeletionService(jdbcTemplate,
+        new DataSourceTransactionManager(dataSource), 10);
+  }
+
+  @Test
+  void deletesUserWithEverythingThatBelongsToThem() {
+
+    // given
+    Long appUserId = insertUser(5000);
+    jdbcTemplate.update("INSERT INTO user_roles (role_id, user_id) SELECT id, ? FROM roles",
+        appUserId);
+    jdbcTemplate.update("INSERT INTO account_verifications (user_id, verification_url, date)"
+        + " VALUES (?, 'url', now())", appUserId);
+    jdbcTemplate.update("INSERT INTO contacts (tsid, first_name, last_name, address,"
+        + " phone_number, app_user_id) SELECT 5000 + n, 'First', 'Last', 'Address',"
+        + " '+381' || n, ? FROM generate_series(1, 25) AS n", appUserId);
+    long otherContacts = contactsOf(1L);
+
+    // when
+    AppUserDeletionResultDTO result = underTest.deleteAppUser(5000L);
+
+    // then
+    assertEquals(new AppUserDeletionResultDTO(25, 1, 0, 2, 0, 1), result);
+    assertEquals(0, contactsOf(appUserId));
+    assertEquals(otherContacts, contactsOf(1L));
+    assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE id = ?",
+        Long.class, appUserId));
+  }
+
+  @Test
+  void unknownUserIsNotFound() {
+    assertThrows(AppUserNotFoundException.class, () -> underTest.deleteAppUser(-1L));
+  }
+
+  private static long contactsOf(Long appUserId) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM contacts WHERE app_user_id = ?",
+        Long.class, appUserId);
+  }
+}
@@ -0,0 +1,122 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.andrijatomic.contactmanager.dtos.AppUserResponseDTO;
+import com.andrijatomic.contactmanager.repos.AppUserRepo;
+import com.andrijatomic.contactmanager.repos.RoleRepo;
+import com.andrijatomic.contactmanager.security.AppUserPrincipalCache;
+import com.andrijatomic.contactmanager.security.CredentialVerificationCache;
+import com.andrijatomic.contactmanager.utils.AddAppUserRequestDTOMapper;
+import com.andrijatomic.contactmanager.utils.AppUserResponseDTOMapper;
+import com.andrijatomic.contactmanager.utils.RoleCatalog;
+import com.andrijatomic.contactmanager.utils.UpdateAppUserRequestDTOMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Guards the role and user reads against loading the users of a role or the contacts of a user.
+ * Every user gets contacts, so a read that initializes either collection issues more statements
+ * than allowed.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppUserQueryCountTest extends PostgresTestSupport {
+
+  private static final int USERS = 20;
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registerDataSource(registry);
+    registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+  }
+
+  @Autowired
+  private AppUserRepo appUserRepo;
+  @Autowired
+  private RoleRepo roleRepo;
+  // Takes part in the test transaction, unlike the shared template of the base class
+  @Autowired
+  private JdbcTemplate transactionalJdbcTemplate;
+  @Autowired
+  private EntityManager entityManager;
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private RoleCatalog roleCatalog;
+  private AppUserService underTest;
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    transactionalJdbcTemplate.update("INSERT INTO users (email, password, first_name,"
+        + " last_name, tsid) SELECT 'user' || n || '@gmail.com', 'password', 'First', 'Last',"
+        + " 1000 + n FROM generate_series(1, " + USERS + ") AS n");
+    transactionalJdbcTemplate.update("INSERT INTO user_roles (role_id, user_id) SELECT r.id, u.id"
+        + " FROM users u CROSS JOIN roles r WHERE u.tsid BETWEEN 1001 AND 1000 + " + USERS);
+    transactionalJdbcTemplate.update("INSERT INTO contacts (tsid, first_name, last_name,"
+        + " address, phone_number, app_user_id) SELECT u.tsid * 10 + n, 'First', 'Last',"
+        + " 'Address', '+381' || (u.tsid * 10 + n), u.id FROM users u"
+        + " CROSS JOIN generate_series(1, 5) AS n WHERE u.tsid BETWEEN 1001 AND 1000 + " + USERS);
+
+    roleCatalog = new RoleCatalog(roleRepo);
+    roleCatalog.refresh();
+    underTest = new AppUserService(appUserRepo, new AppUserResponseDTOMapper(),
+        mock(AddAppUserRequestDTOMapper.class), mock(UpdateAppUserRequestDTOMapper.class),
+        roleCatalog, mock(AccountVerificationService.class), mock(EmailService.class),
+        mock(PasswordEncoder.class), mock(AppUserPrincipalCache.class),
+        mock(CredentialVerificationCache.class), mock(AppUserDeletionService.class));
+
+    entityManager.clear();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void listingRolesIsServedFromTheCatalog() {
+
+    // when
+    underTest.getAllRoles(new HttpHeaders());
+
+    // then
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+  }
+
+  @Test
+  void listingUsersIssuesTwoStatements() {
+
+    // when
+    List<AppUserResponseDTO> users = underTest.getAllAppUsers(0, USERS, "tsid");
+
+    // then
+    assertThat(users).hasSize(USERS);
+    assertThat(users).allSatisfy(user -> assertThat(user.roles()).isNotEmpty());
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+  }
+
+  @Test
+  void gettingAUserIssuesTwoStatements() {
+
+    // when
+    AppUserResponseDTO user = underTest.getAppUser(1001L);
+
+    // then
+    assertThat(user.roles()).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+  }
+}
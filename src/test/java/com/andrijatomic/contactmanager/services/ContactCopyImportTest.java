@@ -0,0 +1,104 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.models.ContactType;
+import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Imports a file full of quoting through COPY, and through batch inserts for comparison, against
+ * the real schema. Quoted fields may hold separators, doubled quotes, line breaks and
+ * backslashes, the rows whose values the validator lets through have to be stored as they were
+ * in the file.
+ */
+class ContactCopyImportTest extends PostgresTestSupport {
+
+  // Contact types are at most 10 characters
+  private static final String QUOTED_TYPE = "Work, \"A\"\\";
+
+  private static final String CSV = """
+      "John","Doe","+381654987801","Some Address 1","Friend"
+      Jane,Doe,+381654987802,"  Quoted Address 2",Friend
+      Mark,Doe,+381654987803,"Street 3, Floor 2",Friend
+      Anna,Doe,+381654987804,"The ""Old"" Mill 4",Friend
+      Paul,Doe,+381654987805,"Line 5
+      Second Line",Friend
+      Eva,Doe,+381654987806,Back\\slash 6,Friend
+      Nina,Doe,+381654987807,Some Address 7,"Work, ""A""\\"
+      Tom,Doe,+381654987808,Some Address 8,Friend
+      """;
+
+  private static long nextTsid = 12000;
+
+  private static Long friendId;
+  private static Long quotedTypeId;
+  private static ContactImportService underTest;
+
+  @BeforeAll
+  static void setUp() {
+    friendId = contactTypeId("Friend");
+    quotedTypeId = contactTypeId(QUOTED_TYPE);
+
+    ContactTypeRegistry contactTypeRegistry = mock(ContactTypeRegistry.class);
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(friendId, 1L, "Friend", null)));
+    when(contactTypeRegistry.getByType(QUOTED_TYPE))
+        .thenReturn(Optional.of(new ContactType(quotedTypeId, 2L, QUOTED_TYPE, null)));
+
+    underTest = new ContactImportService(jdbcTemplate, dataSource,
+        new DataSourceTransactionManager(dataSource), new ContactCsvValidator(),
+        new AddContactCsvDTOMapper(contactTypeRegistry), ForkJoinPool.commonPool(),
+        Runnable::run, 2, 2, 1024 * 1024, 3, 100);
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = ImportMode.class, names = {"COPY", "BATCH"})
+  void storesQuotedValuesAsTheyWereInTheFile(ImportMode mode) throws IOException {
+
+    // given
+    Long appUserId = insertUser(nextTsid++);
+    StringWriter report = new StringWriter();
+
+    // when
+    ImportResultDTO result = underTest.importContacts(new StringReader(CSV), appUserId, mode,
+        new ImportProgress(), ImportErrorReport.writingTo(report));
+
+    // then
+    assertEquals(new ImportResultDTO(4, 0, 0, 4), result);
+    assertThat(jdbcTemplate.queryForList("SELECT first_name, last_name, address, phone_number,"
+        + " contact_type_id FROM contacts WHERE app_user_id = ? ORDER BY phone_number",
+        appUserId))
+        .extracting(row -> List.of(row.get("first_name"), row.get("last_name"),
+            row.get("address"), row.get("phone_number"), row.get("contact_type_id")))
+        .containsExactly(
+            List.of("John", "Doe", "Some Address 1", "+381654987801", friendId),
+            List.of("Jane", "Doe", "  Quoted Address 2", "+381654987802", friendId),
+            List.of("Nina", "Doe", "Some Address 7", "+381654987807", quotedTypeId),
+            List.of("Tom", "Doe", "Some Address 8", "+381654987808", friendId));
+    assertThat(report.toString().lines().skip(1)).containsExactly(
+        "3,address,Address can only contain letters and numbers",
+        "4,address,Address can only contain letters and numbers",
+        "5,address,Address can only contain letters and numbers",
+        "7,address,Address can only contain letters and numbers");
+  }
+}
@@ -0,0 +1,107 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.services.ContactExportService.Snapshot;
+import com.andrijatomic.contactmanager.utils.ExportJob;
+import com.andrijatomic.contactmanager.utils.ExportJob.Status;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class ContactExportJobServiceTest {
+
+  @Mock
+  private ContactExportService contactExportService;
+  @Mock
+  private ThreadPoolTaskExecutor contactExportExecutor;
+
+  private ContactExportJobService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new ContactExportJobService(contactExportService, contactExportExecutor, 60);
+  }
+
+  @Test
+  void exportOfAnExportedVersionCompletesWithItsSnapshot() {
+
+    // given
+    Snapshot snapshot = new Snapshot(Path.of("contacts-7-3.csv.gz"), 3, true);
+    when(contactExportService.findSnapshot(7L, true)).thenReturn(Optional.of(snapshot));
+
+    // when
+    ExportJob job = underTest.submit(7L, true);
+
+    // then
+    assertEquals(Status.COMPLETED, job.getStatus());
+    assertSame(snapshot, job.getSnapshot());
+    assertSame(job, underTest.getJob(job.getId(), 7L).orElseThrow());
+    verifyNoInteractions(contactExportExecutor);
+  }
+
+  @Test
+  void exportRequestedWhileOneIsQueuedAttachesToIt() {
+
+    // given
+    when(contactExportService.findSnapshot(7L, false)).thenReturn(Optional.empty());
+    ExportJob queued = underTest.submit(7L, false);
+
+    // when
+    ExportJob attached = underTest.submit(7L, false);
+
+    // then
+    assertSame(queued, attached);
+    verify(contactExportExecutor, times(1)).execute(any(Runnable.class));
+  }
+
+  @Test
+  void failedExportKeepsItsCauseOutOfTheJob() throws IOException {
+
+    // given
+    when(contactExportService.findSnapshot(7L, false)).thenReturn(Optional.empty());
+    when(contactExportService.snapshot(7L, false)).thenThrow(
+        new IOException("/var/exports/contacts-7-3.csv.tmp: No space left on device"));
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(0).run();
+      return null;
+    }).when(contactExportExecutor).execute(any(Runnable.class));
+
+    // when
+    ExportJob job = underTest.submit(7L, false);
+
+    // then
+    assertEquals(Status.FAILED, job.getStatus());
+    assertEquals("Contact export failed", job.getError());
+    assertNull(job.getSnapshot());
+  }
+
+  @Test
+  void jobOfAnotherUserIsNotFound() {
+
+    // given
+    when(contactExportService.findSnapshot(7L, false)).thenReturn(Optional.empty());
+    ExportJob job = underTest.submit(7L, false);
+
+    // when
+    Optional<ExportJob> found = underTest.getJob(job.getId(), 8L);
+
+    // then
+    assertEquals(Optional.empty(), found);
+  }
+}
@@ -0,0 +1,182 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.exceptions.ImportRejectedException;
+import com.andrijatomic.contactmanager.models.ContactImport;
+import com.andrijatomic.contactmanager.repos.ContactImportRepo;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportJob;
+import com.andrijatomic.contactmanager.utils.ImportJob.Status;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@ExtendWith(MockitoExtension.class)
+class ContactImportJobServiceTest {
+
+  // SHA-256 of CSV
+  private static final String CSV = "John,Doe,+381654987878,Some Address 1,Friend\n";
+  private static final String CSV_HASH =
+      "c3809a13029518c1ff204a3a97e162d443b71c3867bd8645ce2b5a4d972f2673";
+
+  @Mock
+  private ContactImportService contactImportService;
+  @Mock
+  private ContactImportRepo contactImportRepo;
+  @Mock
+  private ThreadPoolTaskExecutor contactImportExecutor;
+  @TempDir
+  private Path spoolDirectory;
+
+  private ContactImportJobService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new ContactImportJobService(contactImportService, contactImportRepo,
+        contactImportExecutor, spoolDirectory.toString(), 60, 60);
+  }
+
+  @Test
+  void repeatedUploadReturnsStoredResult() throws IOException {
+
+    // given
+    when(contactImportRepo.findFirstByAppUserIdAndContentHashAndModeAndCreatedAtAfter(
+        eq(7L), eq(CSV_HASH), eq(ImportMode.BATCH), any(LocalDateTime.class)))
+        .thenReturn(Optional.of(new ContactImport(1L, 7L, CSV_HASH, ImportMode.BATCH,
+            1, 0, 0, 0, LocalDateTime.now())));
+
+    // when
+    ImportJob job = underTest.importNow(csv(), 7L, ImportMode.BATCH);
+
+    // then
+    assertEquals(Status.COMPLETED, job.getStatus());
+    assertEquals(new ImportResultDTO(1, 0), job.getResult());
+    assertEquals(1, job.getProgress().getRowsRead());
+    verifyNoInteractions(contactImportService);
+  }
+
+  @Test
+  void uploadOfARunningImportAttachesToItsJob() throws IOException {
+
+    // given
+    ImportJob running = underTest.submit(csv(), 7L, ImportMode.BATCH, false);
+
+    // when
+    ImportJob attached = underTest.submit(csv(), 7L, ImportMode.BATCH, false);
+
+    // then
+    assertSame(running, attached);
+    verify(contactImportExecutor, times(1)).execute(any(Runnable.class));
+  }
+
+  @Test
+  void failedImportKeepsItsCauseOutOfTheJob() throws IOException {
+
+    // given
+    when(contactImportService.importContacts(any(Path.class), eq(7L), eq(ImportMode.BATCH),
+        any(ImportProgress.class), eq(ImportErrorReport.NONE)))
+        .thenThrow(new DataIntegrityViolationException(
+            "duplicate key value violates unique constraint \"contacts_tsid_key\""));
+
+    // when
+    ImportJob job = underTest.importNow(csv(), 7L, ImportMode.BATCH);
+
+    // then
+    assertEquals(Status.FAILED, job.getStatus());
+    assertEquals("Contact import failed", job.getError());
+    assertNull(job.getResult());
+    verify(contactImportRepo, never()).save(any(ContactImport.class));
+    try (Stream<Path> spooled = Files.list(spoolDirectory)) {
+      assertEquals(0, spooled.count());
+    }
+  }
+
+  @Test
+  void rejectedImportTellsWhichLimitWasBroken() throws IOException {
+
+    // given
+    when(contactImportService.importContacts(any(Path.class), eq(7L), eq(ImportMode.BATCH),
+        any(ImportProgress.class), eq(ImportErrorReport.NONE)))
+        .thenThrow(new ImportRejectedException("Archive has more than 100 files"));
+
+    // when
+    ImportJob job = underTest.importNow(csv(), 7L, ImportMode.BATCH);
+
+    // then
+    assertEquals(Status.REJECTED, job.getStatus());
+    assertEquals("Archive has more than 100 files", job.getError());
+    verify(contactImportRepo, never()).save(any(ContactImport.class));
+  }
+
+  @Test
+  void errorReportEndsWithTheSummary() throws IOException {
+
+    // given
+    when(contactImportService.importContacts(any(Path.class), eq(7L), eq(ImportMode.BATCH),
+        any(ImportProgress.class), any(ImportErrorReport.class)))
+        .thenReturn(new ImportResultDTO(1, 0));
+    StringWriter report = new StringWriter();
+
+    // when
+    underTest.importWithErrorReport(csv(), 7L, ImportMode.BATCH,
+        ImportErrorReport.writingTo(report));
+
+    // then
+    assertThat(report.toString().lines()).containsExactly(
+        "line,column,message",
+        ",COMPLETED,1 contact(s) added. 0 errored.");
+  }
+
+  @Test
+  void errorReportOfAFailedImportEndsWithTheGenericMessage() throws IOException {
+
+    // given
+    when(contactImportService.importContacts(any(Path.class), eq(7L), eq(ImportMode.BATCH),
+        any(ImportProgress.class), any(ImportErrorReport.class)))
+        .thenThrow(new DataIntegrityViolationException(
+            "duplicate key value violates unique constraint \"contacts_tsid_key\""));
+    StringWriter report = new StringWriter();
+
+    // when
+    underTest.importWithErrorReport(csv(), 7L, ImportMode.BATCH,
+        ImportErrorReport.writingTo(report));
+
+    // then
+    assertThat(report.toString().lines()).containsExactly(
+        "line,column,message",
+        ",FAILED,Contact import failed");
+  }
+
+  private static MockMultipartFile csv() {
+    return new MockMultipartFile("file", "contacts.csv", "text/csv",
+        CSV.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,294 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.exceptions.ImportRejectedException;
+import com.andrijatomic.contactmanager.models.ContactType;
+import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
+import com.andrijatomic.contactmanager.utils.ImportErrorReport;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class ContactImportServiceTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+  @Mock
+  private DataSource dataSource;
+  @Mock
+  private PlatformTransactionManager transactionManager;
+  @Mock
+  private ContactTypeRegistry contactTypeRegistry;
+
+  @TempDir
+  private Path uploads;
+
+  private ContactImportService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = service(4 * 1024 * 1024, 3, 100);
+
+    lenient().when(jdbcTemplate.batchUpdate(any(String.class), anyList()))
+        .thenAnswer(invocation -> {
+          int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+          Arrays.fill(counts, 1);
+          return counts;
+        });
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void importsValidRowsInChunks() throws IOException {
+
+    // given
+    String csv = """
+        John,Doe,+381654987878,Some Address 1,Friend
+        Jane,Doe,+381654987879,Some Address 2,Friend
+        Not Valid,Doe,+381654987870,Some Address 3,Friend
+        Mark,Doe,+381654987871,Some Address 4,Friend
+        Ann,Doe,+381654987872,Some Address 5,Unknown
+        """;
+
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+    when(contactTypeRegistry.getByType("Unknown")).thenReturn(Optional.empty());
+
+    // when
+    ImportResultDTO result = underTest.importContacts(new StringReader(csv), 7L);
+
+    // then
+    assertEquals(new ImportResultDTO(3, 2), result);
+
+    ArgumentCaptor<List<Object[]>> chunks = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate, times(2)).batchUpdate(any(String.class), chunks.capture());
+    verify(transactionManager, times(2)).commit(null);
+
+    assertThat(chunks.getAllValues().get(0)).hasSize(2);
+    assertThat(chunks.getAllValues().get(1)).hasSize(1);
+    assertThat(chunks.getAllValues().get(1).get(0))
+        .containsSubsequence("Mark", "Doe", "Some Address 4", "+381654987871", 7L, 3L);
+  }
+
+  @Test
+  void reportsRejectedRowsWithLineColumnAndMessage() throws IOException {
+
+    // given
+    String csv = """
+        John,Doe,+381654987878,Some Address 1,Friend
+        Not Valid,Doe,12345,Some Address 2,Friend
+
+        Ann,Doe,+381654987872,Some Address 3,Unknown
+        """;
+
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+    when(contactTypeRegistry.getByType("Unknown")).thenReturn(Optional.empty());
+    StringWriter report = new StringWriter();
+
+    // when
+    ImportResultDTO result = underTest.importContacts(new StringReader(csv), 7L,
+        ImportMode.BATCH, new ImportProgress(), ImportErrorReport.writingTo(report));
+
+    // then
+    assertEquals(new ImportResultDTO(1, 2), result);
+    assertThat(report.toString()).isEqualTo("""
+        line,column,message
+        2,firstName,First name can only contain letters of the alphabet without spaces
+        2,phoneNumber,"Phone must have '+' followed by 9 to 14 digits, example: +314584814848"
+        4,contactType,Contact type with name Unknown not found.
+        """);
+  }
+
+  @Test
+  void importsGzipCompressedCsv() throws IOException {
+
+    // given
+    Path upload = uploads.resolve("contacts.csv.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(upload))) {
+      out.write("""
+          John,Doe,+381654987878,Some Address 1,Friend
+          Jane,Doe,+381654987879,Some Address 2,Friend
+          """.getBytes(StandardCharsets.UTF_8));
+    }
+
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+
+    // when
+    ImportResultDTO result = underTest.importContacts(upload, 7L, ImportMode.BATCH,
+        new ImportProgress(), ImportErrorReport.NONE);
+
+    // then
+    assertEquals(new ImportResultDTO(2, 0), result);
+  }
+
+  @Test
+  void importsEveryCsvFileOfAZipArchiveWithOneSummary() throws IOException {
+
+    // given
+    Path upload = uploads.resolve("contacts.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(upload))) {
+      out.putNextEntry(new ZipEntry("first.csv"));
+      out.write("John,Doe,+381654987878,Some Address 1,Friend\n"
+          .getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("second.csv"));
+      out.write(("Jane,Doe,+381654987879,Some Address 2,Friend\n"
+          + "Not Valid,Doe,+381654987870,Some Address 3,Friend\n")
+          .getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("readme.txt"));
+      out.write("not contacts".getBytes(StandardCharsets.UTF_8));
+    }
+
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+    StringWriter report = new StringWriter();
+
+    // when
+    ImportResultDTO result = underTest.importContacts(upload, 7L, ImportMode.BATCH,
+        new ImportProgress(), ImportErrorReport.writingTo(report));
+
+    // then
+    assertEquals(new ImportResultDTO(2, 0, 0, 1, List.of("readme.txt")), result);
+    assertThat(result.message()).endsWith("Skipped 1 file(s) that are not .csv: readme.txt.");
+    assertThat(report.toString())
+        .contains("readme.txt,,\"Not a .csv file, skipped\"")
+        .contains("second.csv:2,firstName,First name can only contain letters");
+  }
+
+  @Test
+  void failsWhenTheDriverDoesNotReportInsertedRows() {
+
+    // given
+    when(jdbcTemplate.batchUpdate(any(String.class), anyList()))
+        .thenReturn(new int[]{Statement.SUCCESS_NO_INFO});
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+
+    // when
+    IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+        underTest.importContacts(
+            new StringReader("John,Doe,+381654987878,Some Address 1,Friend\n"), 7L));
+
+    // then
+    assertThat(exception.getMessage()).contains("reWriteBatchedInserts");
+  }
+
+  @Test
+  void rejectsZipArchiveWithTooManyFiles() throws IOException {
+
+    // given
+    Path upload = uploads.resolve("contacts.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(upload))) {
+      for (int i = 1; i <= 4; i++) {
+        out.putNextEntry(new ZipEntry("contacts" + i + ".csv"));
+        out.write("John,Doe,+381654987878,Some Address 1,Friend\n"
+            .getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    // when
+    ImportRejectedException exception = assertThrows(ImportRejectedException.class, () ->
+        underTest.importContacts(upload, 7L, ImportMode.BATCH, new ImportProgress(),
+            ImportErrorReport.NONE));
+
+    // then
+    assertEquals("Archive has more than 3 files", exception.getMessage());
+    verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+  }
+
+  @Test
+  void rejectsUploadThatDecompressesToTooManyBytes() throws IOException {
+
+    // given
+    Path upload = gzipOfRepeatedRows(2 * 1024 * 1024);
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+    ContactImportService limited = service(1024 * 1024, 3, 1_000_000);
+
+    // when
+    ImportRejectedException exception = assertThrows(ImportRejectedException.class, () ->
+        limited.importContacts(upload, 7L, ImportMode.BATCH, new ImportProgress(),
+            ImportErrorReport.NONE));
+
+    // then
+    assertEquals("Upload decompresses to more than 1048576 bytes", exception.getMessage());
+  }
+
+  @Test
+  void rejectsUploadCompressedTooManyTimes() throws IOException {
+
+    // given
+    Path upload = gzipOfRepeatedRows(2 * 1024 * 1024);
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(3L, 30L, "Friend", null)));
+    ContactImportService limited = service(64 * 1024 * 1024, 3, 10);
+
+    // when
+    ImportRejectedException exception = assertThrows(ImportRejectedException.class, () ->
+        limited.importContacts(upload, 7L, ImportMode.BATCH, new ImportProgress(),
+            ImportErrorReport.NONE));
+
+    // then
+    assertEquals("Upload is compressed more than 10 times", exception.getMessage());
+  }
+
+  private ContactImportService service(long maxDecompressedBytes, int maxArchiveEntries,
+      int maxCompressionRatio) {
+    return new ContactImportService(jdbcTemplate, dataSource, transactionManager,
+        new ContactCsvValidator(), new AddContactCsvDTOMapper(contactTypeRegistry),
+        ForkJoinPool.commonPool(), Runnable::run, 2, 1, maxDecompressedBytes, maxArchiveEntries,
+        maxCompressionRatio);
+  }
+
+  private Path gzipOfRepeatedRows(int bytes) throws IOException {
+    Path upload = uploads.resolve("contacts.csv.gz");
+    byte[] row = "John,Doe,+381654987878,Some Address 1,Friend\n"
+        .getBytes(StandardCharsets.UTF_8);
+
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(upload))) {
+      for (int written = 0; written < bytes; written += row.length) {
+        out.write(row);
+      }
+    }
+    return upload;
+  }
+}
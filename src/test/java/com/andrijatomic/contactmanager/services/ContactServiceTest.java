@@ -2,14 +2,17 @@ package com.andrijatomic.contactmanager.services;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.andrijatomic.contactmanager.dtos.AddContactRequestDTO;
 import com.andrijatomic.contactmanager.dtos.ContactResponseDTO;
+import com.andrijatomic.contactmanager.dtos.CursorPageResponseDTO;
+import com.andrijatomic.contactmanager.dtos.PageResponseDTO;
 import com.andrijatomic.contactmanager.dtos.SearchRequestDTO;
 import com.andrijatomic.contactmanager.exceptions.ContactNotFoundException;
 import com.andrijatomic.contactmanager.models.AppUser;
@@ -17,25 +20,42 @@ import com.andrijatomic.contactmanager.models.Contact;
 import com.andrijatomic.contactmanager.models.ContactType;
 import com.andrijatomic.contactmanager.repos.AppUserRepo;
 import com.andrijatomic.contactmanager.repos.ContactRepo;
-import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
-import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.security.AppUserPrincipal;
+import com.andrijatomic.contactmanager.services.ContactExportService.Snapshot;
 import com.andrijatomic.contactmanager.utils.AddContactRequestDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactCursor;
 import com.andrijatomic.contactmanager.utils.ContactResponseDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
+import com.andrijatomic.contactmanager.utils.ExportJobStatusDTOMapper;
+import com.andrijatomic.contactmanager.utils.ImportJobStatusDTOMapper;
+import com.andrijatomic.contactmanager.utils.ImportMode;
 import com.andrijatomic.contactmanager.utils.UpdateContactRequestDTOMapper;
 import com.github.f4b6a3.tsid.TsidCreator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -54,7 +74,7 @@ class ContactServiceTest {
   @Mock
   private AppUserRepo appUserRepo;
   @Mock
-  private ContactTypeRepo contactTypeRepo;
+  private ContactTypeRegistry contactTypeRegistry;
   @Mock
   private ContactResponseDTOMapper responseMapper;
   @Mock
@@ -62,19 +82,32 @@ class ContactServiceTest {
   @Mock
   private UpdateContactRequestDTOMapper updateRequestMapper;
   @Mock
-  private AddContactCsvDTOMapper addCsvMapper;
+  private ContactImportJobService contactImportJobService;
+  @Mock
+  private ImportJobStatusDTOMapper importJobStatusDTOMapper;
+  @Mock
+  private ContactExportService contactExportService;
+  @Mock
+  private ContactExportJobService contactExportJobService;
+  @Mock
+  private ExportJobStatusDTOMapper exportJobStatusDTOMapper;
   @Mock
   PasswordEncoder encoder;
 
+  @TempDir
+  private Path snapshotDirectory;
+
   private ContactService underTest;
 
   private final Long tsid = 1L;
-  private final AppUser loggedInUser = new AppUser();
+  private final AppUserPrincipal loggedInUser = new AppUserPrincipal(1L, 1L, "johndoe@gmail.com",
+      null, true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
   @BeforeEach
   void setUp() {
     underTest = new ContactService(
-        contactRepo, responseMapper, appUserRepo, contactTypeRepo, addRequestMapper,
-        updateRequestMapper, addCsvMapper);
+        contactRepo, responseMapper, appUserRepo, contactTypeRegistry, addRequestMapper,
+        updateRequestMapper, contactImportJobService, importJobStatusDTOMapper,
+        contactExportService, contactExportJobService, exportJobStatusDTOMapper);
     encoder = new BCryptPasswordEncoder();
     //userRole = new Role(1L, TsidCreator.getTsid().toLong(), "ROLE_USER", null);
     //adminRole = new Role(2L, TsidCreator.getTsid().toLong(), "ROLE_ADMIN", null);
@@ -88,28 +121,19 @@ class ContactServiceTest {
   void canGetContactWhenContactFound() {
 
     // given
-    Contact retrievedContact = new Contact(1L, 1L, "FirstName", "LastName", "Some address 11",
-        "+381658474848", null, null);
-    retrievedContact.setContactType(familyContactType);
-
-    AppUser loggedInUser = new AppUser(1L, 1L, "John", "Doe", "johndoe@gmail.com",
-        encoder.encode("password"), "+381658478598", true, true, null, null);
-
-    loggedInUser.setContacts(List.of(retrievedContact));
-    retrievedContact.setAppUser(loggedInUser);
-
-    when(contactRepo.getContactByTsid(tsid)).thenReturn(Optional.of(retrievedContact));
-    when(responseMapper.apply(retrievedContact)).thenReturn(new ContactResponseDTO(
+    ContactResponseDTO retrievedContact = new ContactResponseDTO(
         "1", "FirstName", "LastName", "Some Address 11", "+381658474848", "Home", "1"
-    ));
-    loggedInUser.setContacts(List.of(retrievedContact));
+    );
+
+    when(contactRepo.getContactResponseByTsid(tsid, loggedInUser.getId()))
+        .thenReturn(Optional.of(retrievedContact));
 
     // when
     ResponseEntity<?> response = underTest.getContact(tsid, loggedInUser);
 
     // then
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    verify(responseMapper).apply(retrievedContact);
+    assertEquals(retrievedContact, response.getBody());
   }
 
   @Test
@@ -131,9 +155,10 @@ class ContactServiceTest {
     int pageSize = 10;
     String sortByProperty = "firstName";
     //when
-    underTest.getAllContacts(pageNum, pageSize, sortByProperty, new AppUser());
+    underTest.getAllContacts(pageNum, pageSize, sortByProperty, loggedInUser);
     // then
-    verify(contactRepo).getContactsByAppUser(new AppUser(), PageRequest.of(pageNum, pageSize, Sort.by(sortByProperty)));
+    verify(contactRepo).getContactResponsesByAppUserId(loggedInUser.getId(),
+        PageRequest.of(pageNum, pageSize, Sort.by(sortByProperty).and(Sort.by("tsid"))));
   }
 
   @Test
@@ -144,30 +169,52 @@ class ContactServiceTest {
         "firstName", "John", 0, 10, "firstName"
     );
 
-    AppUser loggedInUser = new AppUser(1L, 1L, "John", "Doe", "johndoe@gmail.com",
-        encoder.encode("password"), "+381658478598", true, true, null, null);
+    List<ContactResponseDTO> mockedContacts = List.of(
+        new ContactResponseDTO("1", "John", "Doe", "Some Address 1", "+381654987878", "Work", "1"),
+        new ContactResponseDTO("2", "John", "Other", "Some Address 2", "+381654987879", "Work", "1")
+    );
+
+    Pageable pageable = PageRequest.of(0, 10, Sort.by("firstName").and(Sort.by("tsid")));
+
+    //when
+    when(contactRepo.searchByFirstName(loggedInUser.getId(), "%john%", pageable))
+        .thenReturn(new PageImpl<>(mockedContacts, pageable, 12));
+
+    PageResponseDTO<ContactResponseDTO> result = underTest
+        .searchContacts(searchRequest, loggedInUser);
+
+    //then
+    verify(contactRepo).searchByFirstName(loggedInUser.getId(), "%john%", pageable);
+    assertEquals(2, result.content().size());
+    assertEquals(12, result.totalElements());
+    assertEquals(2, result.totalPages());
+
+  }
+  @Test
+  void getAllContactsAfterReturnsCursorOfLastContact() {
 
-    List<Contact> mockedContacts = List.of(
-        new Contact(1L, tsid, "John", "Doe", "Some Address 1", "+381654987878", null, null),
-        new Contact(2L, 2L, "John", "Other", "Some Address 2", "+381654987879", null, null)
+    // given
+    List<ContactResponseDTO> mockedContacts = List.of(
+        new ContactResponseDTO("1", "Ana", "Doe", "Some Address 1", "+381654987878", "Work", "1"),
+        new ContactResponseDTO("2", "John", "Doe", "Some Address 2", "+381654987879", "Work", "1"),
+        new ContactResponseDTO("3", "Mark", "Doe", "Some Address 3", "+381654987870", "Work", "1")
     );
-    loggedInUser.setContacts(mockedContacts);
+    String after = new ContactCursor("firstName", 7L, "Aaron").encode();
 
     //when
-    when(contactRepo.getContactByAppUserAndFirstNameContainingIgnoreCase(loggedInUser, "John"))
+    when(contactRepo.getContactsAfterFirstName(loggedInUser.getId(), "Aaron", 7L,
+        PageRequest.of(0, 3)))
         .thenReturn(mockedContacts);
-    when(responseMapper.apply(any(Contact.class))).thenReturn(new ContactResponseDTO(
-        "1L", "John", "Doe", "Some Address 1", "+381638457984", "Work", "1L"
-    ));
 
-    List<ContactResponseDTO> result = underTest.searchContacts(searchRequest, loggedInUser);
+    CursorPageResponseDTO<ContactResponseDTO> result = underTest
+        .getAllContactsAfter(after, 2, "firstName", loggedInUser);
 
     //then
-    verify(contactRepo).getContactByAppUserAndFirstNameContainingIgnoreCase(loggedInUser, "John");
-    verify(responseMapper, times(2)).apply(any(Contact.class));
-    assertEquals(2, result.size());
-
+    assertEquals(2, result.content().size());
+    assertEquals(new ContactCursor("firstName", 2L, "John"),
+        ContactCursor.decode(result.nextCursor()));
   }
+
   @Test
   void canAddContact() {
 
@@ -176,7 +223,7 @@ class ContactServiceTest {
         "John", "Doe", "Some address 1", "+381626547945", "1"
     );
 
-    AppUser loggedInUser = new AppUser(1L, 1L, "John", "Doe", "johndoe@gmail.com",
+    AppUser contactOwner = new AppUser(1L, 1L, "John", "Doe", "johndoe@gmail.com",
         encoder.encode("password"), "+381658478598", true, true, null, null);
 
     //when
@@ -185,8 +232,8 @@ class ContactServiceTest {
     );
 
     when(addRequestMapper.apply(addContact)).thenReturn(returnedContact);
-    when(appUserRepo.getAppUserByTsid(tsid)).thenReturn(Optional.of(loggedInUser));
-    when(contactTypeRepo.getContactTypeByTsid(tsid)).thenReturn(
+    when(appUserRepo.getReferenceById(loggedInUser.getId())).thenReturn(contactOwner);
+    when(contactTypeRegistry.getByTsid(tsid)).thenReturn(
         Optional.ofNullable(familyContactType));
     underTest.addContact(addContact, loggedInUser);
 
@@ -206,9 +253,126 @@ class ContactServiceTest {
   @Test
   void deleteContact() {
   }
-  @Disabled
   @Test
-  void exportContactsToCsv() {
+  void exportContactsToCsvReturnsNotModifiedForCurrentETag() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.setIfNoneMatch("\"1-3\"");
+    when(contactExportService.getContactsVersion(loggedInUser.getId())).thenReturn(3L);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals("\"1-3\"", response.getHeaders().getETag());
+    verify(contactExportService, never()).snapshot(loggedInUser.getId(), false);
+  }
+
+  @Test
+  void exportContactsToCsvServesRequestedRange() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.set(HttpHeaders.RANGE, "bytes=2-5");
+    requestHeaders.set(HttpHeaders.IF_RANGE, "\"1-3\"");
+    givenSnapshot(false);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    MockHttpOutputMessage body = write(response);
+    assertEquals("bytes 2-5/10", body.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    assertEquals("2345", body.getBodyAsString());
+  }
+
+  @Test
+  void exportContactsToCsvServesWholeFileWhenIfRangeDoesNotMatch() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.set(HttpHeaders.RANGE, "bytes=2-5");
+    requestHeaders.set(HttpHeaders.IF_RANGE, "\"1-2\"");
+    givenSnapshot(false);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("0123456789", write(response).getBodyAsString());
+  }
+
+  @Test
+  void exportContactsToCsvRejectsUnsatisfiableRange() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.set(HttpHeaders.RANGE, "bytes=20-30");
+    givenSnapshot(false);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+    assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+  }
+
+  @Test
+  void exportContactsToCsvIsGzipCompressedWhenAccepted() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.set(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.5");
+    givenSnapshot(true);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("\"1-3-gzip\"", response.getHeaders().getETag());
+  }
+
+  @Test
+  void exportContactsToCsvIsNotCompressedWhenGzipIsRefused() throws IOException {
+
+    // given
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.set(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate");
+    givenSnapshot(false);
+
+    // when
+    ResponseEntity<?> response = underTest.exportContactsToCsv(loggedInUser, requestHeaders);
+
+    // then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+    assertEquals("\"1-3\"", response.getHeaders().getETag());
+  }
+  @Test
+  void importContactsWithErrorReportRejectsEmptyFileBeforeStreaming() throws IOException {
+
+    // given
+    MockMultipartFile file = new MockMultipartFile("file", "contacts.csv", "text/csv",
+        new byte[0]);
+    MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+    // when
+    ResponseEntity<?> response = underTest.importContactsFromCsvFileWithErrorReport(file,
+        ImportMode.BATCH, loggedInUser, servletResponse);
+
+    // then
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals("File is empty", response.getBody());
+    assertNull(servletResponse.getContentType());
+    assertEquals("", servletResponse.getContentAsString());
+    verifyNoInteractions(contactImportJobService);
   }
   @Disabled
   @Test
@@ -218,4 +382,21 @@ class ContactServiceTest {
   @Test
   void getAllContactTypes() {
   }
-}
\ No newline at end of file
+
+  private void givenSnapshot(boolean gzip) throws IOException {
+    Path file = Files.writeString(snapshotDirectory.resolve("contacts.csv"), "0123456789");
+    when(contactExportService.getContactsVersion(loggedInUser.getId())).thenReturn(3L);
+    when(contactExportService.snapshot(loggedInUser.getId(), gzip))
+        .thenReturn(new Snapshot(file, 3L, gzip));
+  }
+
+  /**
+   * Writes the body the way the response is written to the client, which sets Content-Range.
+   */
+  private static MockHttpOutputMessage write(ResponseEntity<?> response) throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    new ResourceRegionHttpMessageConverter()
+        .write(response.getBody(), response.getHeaders().getContentType(), outputMessage);
+    return outputMessage;
+  }
+}
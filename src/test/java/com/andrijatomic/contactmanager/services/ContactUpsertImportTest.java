@@ -0,0 +1,83 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.andrijatomic.contactmanager.dtos.ImportResultDTO;
+import com.andrijatomic.contactmanager.models.ContactType;
+import com.andrijatomic.contactmanager.utils.AddContactCsvDTOMapper;
+import com.andrijatomic.contactmanager.utils.ContactCsvValidator;
+import com.andrijatomic.contactmanager.utils.ContactTypeRegistry;
+import com.andrijatomic.contactmanager.utils.ImportMode;
+import com.andrijatomic.contactmanager.utils.ImportProgress;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Runs the import statements against the real schema, where the unique index on the normalized
+ * phone number decides between inserting, updating and skipping a row.
+ */
+class ContactUpsertImportTest extends PostgresTestSupport {
+
+  private static Long appUserId;
+  private static ContactImportService underTest;
+
+  @BeforeAll
+  static void setUp() {
+    appUserId = insertUser(16000);
+
+    Long contactTypeId = contactTypeId("Friend");
+    ContactTypeRegistry contactTypeRegistry = mock(ContactTypeRegistry.class);
+    when(contactTypeRegistry.getByType("Friend"))
+        .thenReturn(Optional.of(new ContactType(contactTypeId, 1L, "Friend", null)));
+
+    underTest = new ContactImportService(jdbcTemplate, dataSource,
+        new DataSourceTransactionManager(dataSource), new ContactCsvValidator(),
+        new AddContactCsvDTOMapper(contactTypeRegistry), ForkJoinPool.commonPool(),
+        Runnable::run, 2, 2, 1024 * 1024, 3, 100);
+  }
+
+  @Test
+  void reimportMatchesContactsByPhoneNumber() throws IOException {
+
+    // given
+    ImportResultDTO initial = importCsv(ImportMode.BATCH, """
+        John,Doe,+381654987878,Some Address 1,Friend
+        Jane,Doe,+381654987879,Some Address 2,Friend
+        """);
+
+    String reimport = """
+        John,Doe,+381654987878,Some Address 1,Friend
+        Jane,Doe,+381654987879,New Address 2,Friend
+        Mark,Doe,+381654987871,Some Address 4,Friend
+        """;
+
+    // when
+    ImportResultDTO upserted = importCsv(ImportMode.UPSERT, reimport);
+    ImportResultDTO batched = importCsv(ImportMode.BATCH, reimport);
+    ImportResultDTO copied = importCsv(ImportMode.COPY, reimport);
+
+    // then
+    assertEquals(new ImportResultDTO(2, 0), initial);
+    assertEquals(new ImportResultDTO(1, 1, 1, 0), upserted);
+    assertEquals(new ImportResultDTO(0, 0, 3, 0), batched);
+    assertEquals(new ImportResultDTO(0, 0, 3, 0), copied);
+
+    assertEquals(3, jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM contacts WHERE app_user_id = ?", Integer.class, appUserId));
+    assertEquals("New Address 2", jdbcTemplate.queryForObject("SELECT address FROM contacts"
+        + " WHERE app_user_id = ? AND phone_number = '+381654987879'", String.class, appUserId));
+  }
+
+  private static ImportResultDTO importCsv(ImportMode mode, String csv) throws IOException {
+    return underTest.importContacts(new StringReader(csv), appUserId, mode,
+        new ImportProgress());
+  }
+}
@@ -0,0 +1,104 @@
+package com.andrijatomic.contactmanager.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.andrijatomic.contactmanager.PostgresTestSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Sends queued mails through a local GreenMail SMTP server. The outbox lives in the real schema,
+ * so claiming with SKIP LOCKED and the backoff run the production statements.
+ */
+class EmailOutboxDispatcherTest extends PostgresTestSupport {
+
+  @RegisterExtension
+  static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  private static SpringTemplateEngine templateEngine;
+  private static EmailOutboxService outbox;
+
+  @BeforeAll
+  static void setUp() {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("templates/");
+    templateResolver.setSuffix(".html");
+    templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+
+    outbox = new EmailOutboxService(jdbcTemplate, new ObjectMapper());
+  }
+
+  @BeforeEach
+  void clearOutbox() {
+    jdbcTemplate.update("DELETE FROM email_outbox");
+  }
+
+  @Test
+  void sendsQueuedVerificationMails() throws Exception {
+
+    // given
+    for (int i = 1; i <= 3; i++) {
+      outbox.enqueue("user" + i + "@gmail.com", "Verify mail", "verification/verifymail",
+          Map.of("user", Map.of("firstName", "User" + i),
+              "verification", "http://localhost:8080/verification/verify/" + i));
+    }
+
+    // when
+    int dispatched = dispatcher(ServerSetupTest.SMTP.getPort()).dispatch();
+
+    // then
+    assertEquals(3, dispatched);
+    MimeMessage[] received = greenMail.getReceivedMessages();
+    assertEquals(3, received.length);
+    assertEquals("Verify mail", received[0].getSubject());
+    assertEquals("user1@gmail.com", GreenMailUtil.getAddressList(received[0].getAllRecipients()));
+    assertEquals(0, jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM email_outbox WHERE sent_at IS NULL", Long.class));
+  }
+
+  @Test
+  void failedMailIsRetriedWithBackoff() throws Exception {
+
+    // given
+    outbox.enqueue("user@gmail.com", "Verify mail", "verification/verifymail",
+        Map.of("user", Map.of("firstName", "User"), "verification", "http://localhost"));
+
+    // when
+    dispatcher(ServerSetupTest.SMTP.getPort() + 1).dispatch();
+
+    // then
+    Map<String, Object> row = jdbcTemplate.queryForMap("SELECT attempts, last_error,"
+        + " next_attempt_at > now() + interval '20 seconds' AS backed_off, sent_at"
+        + " FROM email_outbox");
+    assertEquals(1, row.get("attempts"));
+    assertThat(row.get("last_error")).isNotNull();
+    assertEquals(true, row.get("backed_off"));
+    assertThat(row.get("sent_at")).isNull();
+    assertEquals(0, greenMail.getReceivedMessages().length);
+  }
+
+  private static EmailOutboxDispatcher dispatcher(int smtpPort) throws AddressException {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(smtpPort);
+
+    return new EmailOutboxDispatcher(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+        mailSender, templateEngine, new ObjectMapper(), Runnable::run, "noreply@gmail.com",
+        50, 2, 8, 30, 3600, 300);
+  }
+}
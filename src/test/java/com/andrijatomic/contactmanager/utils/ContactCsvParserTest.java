@@ -0,0 +1,89 @@
+package com.andrijatomic.contactmanager.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.andrijatomic.contactmanager.dtos.AddContactCsvDTO;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+class ContactCsvParserTest {
+
+  @Test
+  void parsesQuotedAndUnquotedFieldsAcrossBufferRefills() throws IOException {
+
+    // given
+    String csv = "John,Doe,+381654987878,Some Address 1,Friend\r\n"
+        + "\n"
+        + "Jane,  \"Do,e\",+381654987879,\"Multi\nline \"\"1\"\"\",Work,ignored\n"
+        + "Mark,Short";
+
+    // a tiny buffer makes every field straddle a refill
+    ContactCsvParser parser = new ContactCsvParser(new StringReader(csv), 4);
+
+    // when
+    AddContactCsvDTO first = parser.next();
+    long firstLine = parser.getLineNumber();
+    AddContactCsvDTO second = parser.next();
+    long secondLine = parser.getLineNumber();
+    AddContactCsvDTO third = parser.next();
+    long thirdLine = parser.getLineNumber();
+
+    // then
+    assertEquals(new AddContactCsvDTO("John", "Doe", "+381654987878", "Some Address 1", "Friend"),
+        first);
+    assertEquals(1, firstLine);
+
+    assertEquals(new AddContactCsvDTO("Jane", "Do,e", "+381654987879", "Multi\nline \"1\"",
+        "Work"), second);
+    assertEquals(3, secondLine);
+
+    assertEquals(new AddContactCsvDTO("Mark", "Short", null, null, null), third);
+    assertEquals(5, thirdLine);
+
+    assertNull(parser.next());
+  }
+
+  @Test
+  void dropsSpacesAndTabsAfterSeparators() throws IOException {
+
+    // given
+    String csv = "John, Doe, +381654987878,\tSome Address 1,  \"Family\"\n"
+        + "Jane,Doe,+381654987879,Some Address 2 ,Work";
+    ContactCsvParser parser = new ContactCsvParser(new StringReader(csv), 4);
+
+    // when
+    AddContactCsvDTO first = parser.next();
+    AddContactCsvDTO second = parser.next();
+
+    // then
+    assertEquals(new AddContactCsvDTO("John", "Doe", "+381654987878", "Some Address 1", "Family"),
+        first);
+    assertTrue(new ContactCsvValidator().isValid(first));
+    assertEquals(new AddContactCsvDTO("Jane", "Doe", "+381654987879", "Some Address 2 ", "Work"),
+        second);
+    assertNull(parser.next());
+  }
+
+  @Test
+  void validatorAppliesTheDtoConstraints() {
+
+    // given
+    ContactCsvValidator validator = new ContactCsvValidator();
+
+    // when
+    var violations = validator.validate(
+        new AddContactCsvDTO("Not Valid", "Doe", "12345", "Some Address 1", " "));
+
+    // then
+    assertTrue(validator.isValid(
+        new AddContactCsvDTO("John", "Doe", "+381654987878", "Some Address 1", "Friend")));
+    assertEquals(3, violations.size());
+    assertEquals("First name can only contain letters of the alphabet without spaces",
+        violations.get(0).message());
+    assertEquals("phoneNumber", violations.get(1).field());
+    assertEquals("contactType", violations.get(2).field());
+  }
+}
@@ -0,0 +1,121 @@
+package com.andrijatomic.contactmanager.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.dtos.ContactTypeResponseDTO;
+import com.andrijatomic.contactmanager.models.ContactType;
+import com.andrijatomic.contactmanager.repos.ContactTypeRepo;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class ContactTypeRegistryTest {
+
+  private static final ContactType FAMILY = new ContactType(1L, 10L, "Family", null);
+  private static final ContactType FRIEND = new ContactType(3L, 30L, "Friend", null);
+
+  @Mock
+  private ContactTypeRepo contactTypeRepo;
+
+  private ContactTypeRegistry underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new ContactTypeRegistry(contactTypeRepo);
+  }
+
+  @AfterEach
+  void clearSynchronization() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void loadsTheTypesOnFirstUseOnly() {
+
+    // given
+    verifyNoInteractions(contactTypeRepo);
+    when(contactTypeRepo.findAll()).thenReturn(List.of(FRIEND, FAMILY));
+
+    // when
+    ContactType friend = underTest.getByType("Friend").orElseThrow();
+    ContactType family = underTest.getByTsid(10L).orElseThrow();
+    List<ContactTypeResponseDTO> all = underTest.getAll();
+
+    // then
+    assertEquals(FRIEND, friend);
+    assertEquals(FAMILY, family);
+    assertEquals(List.of(new ContactTypeResponseDTO("10", "Family"),
+        new ContactTypeResponseDTO("30", "Friend")), all);
+    verify(contactTypeRepo, times(1)).findAll();
+  }
+
+  @Test
+  void registeredTypeIsVisibleOnceTheTransactionCommits() {
+
+    // given
+    when(contactTypeRepo.findAll()).thenReturn(List.of(FRIEND));
+    underTest.getAll();
+    TransactionSynchronizationManager.initSynchronization();
+
+    // when
+    underTest.register(new ContactType(4L, 40L, "Work", null));
+    boolean visibleBeforeCommit = underTest.getByType("Work").isPresent();
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+
+    // then
+    assertThat(visibleBeforeCommit).isFalse();
+    assertEquals(new ContactType(4L, 40L, "Work", null),
+        underTest.getByType("Work").orElseThrow());
+  }
+
+  @Test
+  void renamedTypeNoLongerResolvesUnderItsOldName() {
+
+    // given
+    when(contactTypeRepo.findAll()).thenReturn(List.of(FAMILY, FRIEND));
+    underTest.getAll();
+
+    // when
+    underTest.register(new ContactType(3L, 30L, "Friends", null));
+
+    // then
+    assertTrue(underTest.getByType("Friend").isEmpty());
+    assertEquals("Friends", underTest.getByType("Friends").orElseThrow().getType());
+    assertEquals("Friends", underTest.getByTsid(30L).orElseThrow().getType());
+    assertEquals(2, underTest.getAll().size());
+  }
+
+  @Test
+  void refreshReplacesTheLoadedTypes() {
+
+    // given
+    when(contactTypeRepo.findAll())
+        .thenReturn(List.of(FAMILY, FRIEND))
+        .thenReturn(List.of(FAMILY));
+    underTest.getAll();
+
+    // when
+    underTest.refresh();
+
+    // then
+    assertTrue(underTest.getByType("Friend").isEmpty());
+    assertEquals(List.of(new ContactTypeResponseDTO("10", "Family")), underTest.getAll());
+    verify(contactTypeRepo, times(2)).findAll();
+  }
+}
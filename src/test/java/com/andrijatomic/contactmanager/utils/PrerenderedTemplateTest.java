@@ -0,0 +1,41 @@
+package com.andrijatomic.contactmanager.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+class PrerenderedTemplateTest {
+
+  @Test
+  void rendersTheSameHtmlAsTheTemplateEngine() {
+
+    // given
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("templates/");
+    templateResolver.setSuffix(".html");
+    SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+
+    Map<String, Object> variables = Map.of(
+        "user", Map.of("firstName", "<Jöhn> & \"Jane\" O'Doe"),
+        "verification", "http://localhost:8080/verification/verify/a?b=1&c=\"2\"");
+
+    Context context = new Context();
+    context.setVariables(variables);
+    String expected = templateEngine.process("verification/verifymail", context);
+
+    Map<String, String> values = PrerenderedTemplate.flatten(variables);
+    PrerenderedTemplate template = PrerenderedTemplate
+        .prerender(templateEngine, "verification/verifymail", values.keySet());
+
+    // when
+    String rendered = template.render(values);
+
+    // then
+    assertEquals(expected, rendered);
+  }
+}
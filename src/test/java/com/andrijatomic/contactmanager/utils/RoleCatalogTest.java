@@ -0,0 +1,56 @@
+package com.andrijatomic.contactmanager.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.andrijatomic.contactmanager.models.Role;
+import com.andrijatomic.contactmanager.repos.RoleRepo;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RoleCatalogTest {
+
+  @Test
+  void eTagIsTheSameForTheSameRoles() {
+
+    // given
+    RoleCatalog first = catalog(new Role(1L, 11L, "ROLE_USER", null),
+        new Role(2L, 12L, "ROLE_ADMIN", null));
+    RoleCatalog second = catalog(new Role(2L, 12L, "ROLE_ADMIN", null),
+        new Role(1L, 11L, "ROLE_USER", null));
+
+    // when
+    String eTag = first.getETag();
+
+    // then
+    assertEquals(second.getETag(), eTag);
+    assertThat(eTag).matches("\"roles-[0-9a-f]{64}\"");
+  }
+
+  @Test
+  void eTagChangesWithAnyRole() {
+
+    // given
+    String eTag = catalog(new Role(1L, 11L, "ROLE_USER", null),
+        new Role(2L, 12L, "ROLE_ADMIN", null)).getETag();
+
+    // when
+    RoleCatalog renamed = catalog(new Role(1L, 11L, "ROLE_USER", null),
+        new Role(2L, 12L, "ROLE_ADMINS", null));
+    RoleCatalog shifted = catalog(new Role(1L, 11L, "ROLE_USER1", null),
+        new Role(2L, 2L, "ROLE_ADMIN", null));
+
+    // then
+    assertNotEquals(eTag, renamed.getETag());
+    assertNotEquals(eTag, shifted.getETag());
+  }
+
+  private static RoleCatalog catalog(Role... roles) {
+    RoleRepo roleRepo = mock(RoleRepo.class);
+    when(roleRepo.findAll()).thenReturn(List.of(roles));
+    return new RoleCatalog(roleRepo);
+  }
+}